@@ -54,6 +54,16 @@ public class SetupDTO {
      */
     boolean establishArduinoConn;
 
+    /**
+     * The number of pages kept before and after the current page by pre-rendering controllers, -1 for all pages.
+     */
+    int pageCacheWindow = -1;
+
+    /**
+     * The maximum number of bytes pages outside of the window may take.
+     */
+    long pageCacheMemoryBudget = Long.MAX_VALUE;
+
     public SetupDTO(GraphicsDevice presentationScreen, GraphicsDevice lookupScreen, String pdfViewer, Integer timePerSlide, Integer maxSlides, boolean establishArduinoConn) {
         this.presentationScreen = presentationScreen;
         this.lookupScreen = lookupScreen;
@@ -110,4 +120,24 @@ public class SetupDTO {
     public void setEstablishArduinoConn(boolean establishArduinoConn) {
         this.establishArduinoConn = establishArduinoConn;
     }
+
+    public int getPageCacheWindow() {
+        return pageCacheWindow;
+    }
+
+    public long getPageCacheMemoryBudget() {
+        return pageCacheMemoryBudget;
+    }
+
+    /**
+     * Sets how many pages pre-rendering controllers keep, see
+     * {@link logic.PDFToPPMLocalController#setPageCacheWindow(int, long)}.
+     *
+     * @param pageCacheWindow       The number of pages kept before and after the current page, -1 for all pages.
+     * @param pageCacheMemoryBudget The maximum number of bytes pages outside of the window may take.
+     */
+    public void setPageCacheWindow(int pageCacheWindow, long pageCacheMemoryBudget) {
+        this.pageCacheWindow = pageCacheWindow;
+        this.pageCacheMemoryBudget = pageCacheMemoryBudget;
+    }
 }
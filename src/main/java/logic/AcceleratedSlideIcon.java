@@ -0,0 +1,200 @@
+package logic;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * An {@link Icon} displaying a slide in the pixel-format of the screen it is shown on, so painting it is a plain,
+ * accelerated blit instead of a color-conversion on every repaint.
+ */
+public class AcceleratedSlideIcon implements Icon {
+
+    /**
+     * The ways a slide can be prepared for the screen.
+     */
+    public enum Acceleration {
+        /**
+         * The slide is painted as scaled, as generic images did before.
+         */
+        NONE,
+
+        /**
+         * The slide is converted into a compatible image of the screen, which Java2D caches in video-memory.
+         */
+        MANAGED,
+
+        /**
+         * Like {@link #MANAGED}, additionally keeping a {@link VolatileImage} of the slide once it has been painted.
+         */
+        VOLATILE
+    }
+
+    /**
+     * The slide, compatible with the screen unless no acceleration is used.
+     */
+    private final BufferedImage image;
+
+    /**
+     * The {@link Acceleration}.
+     */
+    private final Acceleration acceleration;
+
+    /**
+     * The statistics receiving the latency of the first paint after the slide has been shown.
+     */
+    private final FlipStatistics statistics;
+
+    /**
+     * The copy of the slide in video-memory, only used with {@link Acceleration#VOLATILE}. Only accessed by the
+     * thread painting the slide, i.e. the EDT.
+     */
+    private VolatileImage volatileImage;
+
+    /**
+     * The {@link System#nanoTime()} the slide was requested to be shown at, or 0 after the first paint.
+     */
+    private volatile long shownAt;
+
+    /**
+     * The Constructor.
+     *
+     * @param image        The prepared slide.
+     * @param acceleration The {@link Acceleration}.
+     * @param statistics   The {@link FlipStatistics}.
+     */
+    private AcceleratedSlideIcon(BufferedImage image, Acceleration acceleration, FlipStatistics statistics) {
+        this.image = image;
+        this.acceleration = acceleration;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Prepares a scaled slide for a screen.
+     *
+     * @param scaled       The scaled slide.
+     * @param gc           The {@link GraphicsConfiguration} of the screen or null, if it is unknown.
+     * @param acceleration The {@link Acceleration}.
+     * @param statistics   The {@link FlipStatistics}.
+     * @return The icon.
+     */
+    public static AcceleratedSlideIcon create(BufferedImage scaled, GraphicsConfiguration gc, Acceleration acceleration,
+                                              FlipStatistics statistics) {
+        if (gc == null || acceleration == Acceleration.NONE) {
+            return new AcceleratedSlideIcon(scaled, Acceleration.NONE, statistics);
+        }
+
+        BufferedImage compatible = gc.createCompatibleImage(scaled.getWidth(), scaled.getHeight(), Transparency.OPAQUE);
+
+        if (compatible.getColorModel().equals(scaled.getColorModel())
+                && compatible.getSampleModel().getClass().equals(scaled.getSampleModel().getClass())) {
+            return new AcceleratedSlideIcon(scaled, acceleration, statistics);
+        }
+
+        Graphics2D g = compatible.createGraphics();
+        g.drawImage(scaled, 0, 0, null);
+        g.dispose();
+
+        return new AcceleratedSlideIcon(compatible, acceleration, statistics);
+    }
+
+    /**
+     * Marks the slide as requested to be shown, so the latency until its first paint is recorded.
+     *
+     * @param requestedAt The {@link System#nanoTime()} the page-change was requested at.
+     */
+    public void markShown(long requestedAt) {
+        this.shownAt = requestedAt;
+    }
+
+    @Override
+    public void paintIcon(Component c, Graphics g, int x, int y) {
+        if (acceleration == Acceleration.VOLATILE && c != null && c.getGraphicsConfiguration() != null) {
+            paintVolatile(c.getGraphicsConfiguration(), g, x, y);
+        } else {
+            g.drawImage(image, x, y, null);
+        }
+
+        long requestedAt = shownAt;
+        if (requestedAt != 0) {
+            shownAt = 0;
+            statistics.record(System.nanoTime() - requestedAt);
+        }
+    }
+
+    /**
+     * Paints the slide from video-memory, restoring its contents if they were lost.
+     *
+     * @param gc The {@link GraphicsConfiguration} of the painted component.
+     * @param g  The graphics.
+     * @param x  The x-coordinate.
+     * @param y  The y-coordinate.
+     */
+    private void paintVolatile(GraphicsConfiguration gc, Graphics g, int x, int y) {
+        do {
+            int state = volatileImage == null ? VolatileImage.IMAGE_INCOMPATIBLE : volatileImage.validate(gc);
+
+            if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+                flush();
+                volatileImage = gc.createCompatibleVolatileImage(image.getWidth(), image.getHeight(), Transparency.OPAQUE);
+            }
+
+            if (state != VolatileImage.IMAGE_OK) {
+                Graphics2D vg = volatileImage.createGraphics();
+                vg.drawImage(image, 0, 0, null);
+                vg.dispose();
+            }
+
+            g.drawImage(volatileImage, x, y, null);
+        } while (volatileImage.contentsLost());
+    }
+
+    /**
+     * Releases the video-memory of this slide. It is restored upon the next paint if necessary.
+     * Must be called by the thread painting the slide, i.e. the EDT.
+     */
+    public void flush() {
+        if (volatileImage != null) {
+            volatileImage.flush();
+            volatileImage = null;
+        }
+    }
+
+    /**
+     * Returns the prepared slide.
+     *
+     * @return The image.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public int getIconWidth() {
+        return image.getWidth();
+    }
+
+    @Override
+    public int getIconHeight() {
+        return image.getHeight();
+    }
+}
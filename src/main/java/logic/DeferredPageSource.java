@@ -0,0 +1,85 @@
+package logic;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A {@link PageSource} rendering pages right away while a faster source for them is looked for in the background,
+ * e.g. a cached rendering or an {@link IncrementalPageSource} reusing previous renderings. Once that source is found,
+ * all further pages are loaded from it, so looking for it never delays the first page.
+ */
+public class DeferredPageSource implements PageSource {
+
+    /**
+     * The source rendering the pages until the preferred source is found.
+     */
+    private final PageSource renderer;
+
+    /**
+     * A future completed with the preferred source, which may be the renderer itself.
+     */
+    private final CompletableFuture<PageSource> preferred;
+
+    /**
+     * The Constructor.
+     *
+     * @param renderer  The source rendering the pages until the preferred source is found.
+     * @param preferred A future completed with the preferred source, which may be the renderer itself.
+     */
+    public DeferredPageSource(PageSource renderer, CompletableFuture<PageSource> preferred) {
+        this.renderer = renderer;
+        this.preferred = preferred;
+    }
+
+    /**
+     * Returns whether the preferred source has been found and is another one than the renderer.
+     *
+     * @return Whether pages are not rendered by the renderer anymore.
+     */
+    public boolean isRendererReplaced() {
+        PageSource source = preferred.isCompletedExceptionally() ? null : preferred.getNow(null);
+        return source != null && source != renderer;
+    }
+
+    @Override
+    public int getPageCount() {
+        return renderer.getPageCount();
+    }
+
+    @Override
+    public BufferedImage loadPage(int page) throws IOException {
+        PageSource source = preferred.isCompletedExceptionally() ? null : preferred.getNow(null);
+        return (source != null ? source : renderer).loadPage(page);
+    }
+
+    @Override
+    public void close() {
+        renderer.close();
+
+        // a preferred source found after closing is closed as well
+        preferred.thenAccept(source -> {
+            if (source != renderer) {
+                source.close();
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Collects the latencies between requesting a page-change and the first paint of the new page.
+ */
+public class FlipStatistics {
+
+    private final AtomicLong flips = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records the latency of a single flip.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        flips.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getFlips() {
+        return flips.get();
+    }
+
+    /**
+     * Returns the average latency.
+     *
+     * @return The latency in milliseconds or 0, if no flip was recorded yet.
+     */
+    public double getAverageMillis() {
+        long count = flips.get();
+        return count == 0 ? 0 : totalNanos.get() / (double) count / 1_000_000.0;
+    }
+
+    /**
+     * Returns the maximum latency.
+     *
+     * @return The latency in milliseconds.
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlipStatistics[flips=%d, avg=%.2f ms, max=%.2f ms]", getFlips(), getAverageMillis(), getMaxMillis());
+    }
+}
@@ -1,5 +1,6 @@
 package logic;
 
+import logic.pdftoppm.RenderResolution;
 import org.icepdf.core.exceptions.PDFException;
 import org.icepdf.core.exceptions.PDFSecurityException;
 import org.icepdf.core.pobjects.Document;
@@ -14,6 +15,11 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 /*
@@ -56,6 +62,43 @@ public class IcePDFController implements PDFViewerController {
      */
     private Document pdf;
 
+    /**
+     * The path of the displayed PDF-document.
+     */
+    private String filePath;
+
+    /**
+     * Whether the pages next to the current one are rasterized in the background, so page changes only have to
+     * display an image.
+     */
+    private boolean prerenderNeighbours = true;
+
+    /**
+     * Whether a page is rasterized once at the size of the largest panel and downscaled for all other panels,
+     * instead of being rasterized for every panel on its own.
+     */
+    private boolean sharedRasterization = true;
+
+    /**
+     * The caches of the pre-rasterized pages, one shared by all panels or one for each panel.
+     */
+    private final ArrayList<PageCache> rasterizedPages = new ArrayList<>();
+
+    /**
+     * The latencies between page-changes and the first paint of a pre-rasterized page.
+     */
+    private final FlipStatistics flipStatistics = new FlipStatistics();
+
+    /**
+     * The number of page changes served from the pre-rasterized pages.
+     */
+    private final AtomicLong cachedFlips = new AtomicLong();
+
+    /**
+     * The number of page changes which had to wait for IcePDF to paint the page.
+     */
+    private final AtomicLong uncachedFlips = new AtomicLong();
+
     /**
      * The constructor.
      */
@@ -88,16 +131,157 @@ public class IcePDFController implements PDFViewerController {
     @Override
     public void fitViewers() {
         controllers.forEach(SwingControllerWrapper::fitViewer);
+
+        startRasterization();
     }
 
     @Override
     public void nextPage() {
-        controllers.forEach(SwingControllerWrapper::nextPage);
+        boolean fromCache = controllers.stream().map(SwingControllerWrapper::nextPage).reduce(true, Boolean::logicalAnd);
+
+        rasterizeAroundCurrentPage();
+        recordFlip(fromCache);
     }
 
     @Override
     public void prevPage() {
-        controllers.forEach(SwingControllerWrapper::prevPage);
+        boolean fromCache = controllers.stream().map(SwingControllerWrapper::prevPage).reduce(true, Boolean::logicalAnd);
+
+        rasterizeAroundCurrentPage();
+        recordFlip(fromCache);
+    }
+
+    /**
+     * Starts rasterizing the pages around the current one at the current sizes of the panels, dropping all
+     * pages rasterized before. In shared mode the pages are rasterized once at the size of the largest panel,
+     * otherwise once for every panel.
+     */
+    private void startRasterization() {
+        stopRasterization();
+
+        if (!prerenderNeighbours || pdf == null || filePath == null) {
+            return;
+        }
+
+        if (sharedRasterization) {
+            Dimension largest = new Dimension();
+
+            for (SwingControllerWrapper c : controllers) {
+                largest.width = Math.max(largest.width, c.getViewerPane().getWidth());
+                largest.height = Math.max(largest.height, c.getViewerPane().getHeight());
+            }
+
+            PageCache shared = createRasterCache(largest);
+
+            if (shared != null) {
+                controllers.forEach(c -> c.setRasterizedPages(shared));
+            }
+        } else {
+            controllers.forEach(c -> c.setRasterizedPages(createRasterCache(c.getViewerPane().getSize())));
+        }
+
+        rasterizeAroundCurrentPage();
+    }
+
+    /**
+     * Creates a cache rasterizing the current page and its neighbours to fit into a box.
+     *
+     * @param box the size of the box
+     * @return the {@link PageCache} or null, if the box is empty
+     */
+    private PageCache createRasterCache(Dimension box) {
+        if (box.width <= 0 || box.height <= 0) {
+            return null;
+        }
+
+        PDimension pDim = pdf.getPageDimension(0, 0f);
+        RenderResolution resolution = RenderResolution.fitInto(box.width, box.height).fittedTo(pDim.getWidth(), pDim.getHeight());
+        int pageCount = pdf.getNumberOfPages();
+
+        // only the current page and its neighbours are kept
+        PageCache cache = new PageCache(new IcePDFPageSource(filePath, pageCount, resolution), pageCount, 1, 0);
+        cache.addEvictionListener(page -> controllers.forEach(c -> c.evict(cache, page)));
+        rasterizedPages.add(cache);
+
+        LOG.info("Rasterizing pages at " + resolution);
+
+        return cache;
+    }
+
+    /**
+     * Moves the window of the pre-rasterized pages to the current page and starts scaling them for every panel.
+     */
+    private void rasterizeAroundCurrentPage() {
+        int page = getCurrentPageNumber();
+
+        rasterizedPages.forEach(cache -> cache.setCurrentPage(page));
+        controllers.forEach(SwingControllerWrapper::prefetchImages);
+    }
+
+    /**
+     * Drops all pre-rasterized pages.
+     */
+    private void stopRasterization() {
+        controllers.forEach(c -> c.setRasterizedPages(null));
+        rasterizedPages.forEach(PageCache::close);
+        rasterizedPages.clear();
+    }
+
+    /**
+     * Sets whether a page is rasterized once at the size of the largest panel and downscaled for all other panels,
+     * taking effect at the next fitting of the viewers.
+     *
+     * @param sharedRasterization whether to share the rasterized pages between the panels
+     */
+    public void setSharedRasterization(boolean sharedRasterization) {
+        this.sharedRasterization = sharedRasterization;
+    }
+
+    public boolean isSharedRasterization() {
+        return sharedRasterization;
+    }
+
+    /**
+     * Returns the latencies between page-changes and the first paint of a pre-rasterized page.
+     *
+     * @return the {@link FlipStatistics}
+     */
+    public FlipStatistics getFlipStatistics() {
+        return flipStatistics;
+    }
+
+    /**
+     * Records and logs whether a page change was served from the pre-rasterized pages on every panel.
+     *
+     * @param fromCache whether every panel displayed a pre-rasterized page
+     */
+    private void recordFlip(boolean fromCache) {
+        (fromCache ? cachedFlips : uncachedFlips).incrementAndGet();
+
+        LOG.info("Changed to page " + (getCurrentPageNumber() + 1) + (fromCache ? " from the pre-rasterized pages" : " painted by IcePDF")
+                + " (" + cachedFlips.get() + " cached, " + uncachedFlips.get() + " uncached page changes)");
+    }
+
+    /**
+     * Sets whether the pages next to the current one are rasterized in the background, taking effect at the next
+     * fitting of the viewers.
+     *
+     * @param prerenderNeighbours whether to pre-rasterize the neighbouring pages
+     */
+    public void setPrerenderNeighbours(boolean prerenderNeighbours) {
+        this.prerenderNeighbours = prerenderNeighbours;
+    }
+
+    public boolean isPrerenderNeighbours() {
+        return prerenderNeighbours;
+    }
+
+    public long getCachedFlips() {
+        return cachedFlips.get();
+    }
+
+    public long getUncachedFlips() {
+        return uncachedFlips.get();
     }
 
     @Override
@@ -112,17 +296,19 @@ public class IcePDFController implements PDFViewerController {
 
     @Override
     public void gotoFirst() {
-        controllers.forEach(c -> c.getController().showPage(0));
+        controllers.forEach(c -> c.showPage(0));
+
+        rasterizeAroundCurrentPage();
     }
 
     @Override
     public void setScreenVisibility(boolean visible) {
-        controllers.forEach(c -> c.getDocContainer().setVisible(visible));
+        controllers.forEach(c -> c.setSlideVisible(visible));
     }
 
     @Override
     public boolean isScreenVisible() {
-        return controllers.stream().map(SwingControllerWrapper::getDocContainer).allMatch(Component::isVisible);
+        return controllers.stream().allMatch(SwingControllerWrapper::isSlideVisible);
     }
 
     @Override
@@ -145,8 +331,11 @@ public class IcePDFController implements PDFViewerController {
     public void loadNewFile(String filePath) throws IOException, PDFException, PDFSecurityException {
         LOG.info("Starting loading file " + filePath);
 
+        stopRasterization();
+
         pdf = new Document();
         pdf.setFile(filePath);
+        this.filePath = filePath;
         controllers.forEach(c -> c.loadNewFile(pdf));
 
         LOG.info("Finished loading file " + filePath);
@@ -169,11 +358,42 @@ public class IcePDFController implements PDFViewerController {
      * This class wraps a {@link SwingController}, potentially to wrap its Swing-{@link Container} within another JPanel.
      */
     private class SwingControllerWrapper {
+        /**
+         * The name of the card showing the view of IcePDF.
+         */
+        private static final String VIEW_CARD = "view";
+
+        /**
+         * The name of the card showing a pre-rasterized page.
+         */
+        private static final String IMAGE_CARD = "image";
+
         /**
          * The {@link SwingController}.
          */
         SwingController controller;
 
+        /**
+         * The panel switching between the view of IcePDF and a pre-rasterized page.
+         */
+        private JPanel viewerPane;
+
+        /**
+         * The {@link JLabel} displaying a pre-rasterized page.
+         */
+        private JLabel imageLabel;
+
+        /**
+         * The pre-rasterized pages around the current one, at the size of this or a larger panel, or null.
+         */
+        private PageCache rasterized;
+
+        /**
+         * The pre-rasterized pages scaled to the size of this panel, held in the shared {@link ScaledImageCache}, by
+         * their page-number.
+         */
+        private Map<Integer, ScaledImageCache.Handle> images = new ConcurrentHashMap<>();
+
         /**
          * The constructor.
          */
@@ -189,6 +409,15 @@ public class IcePDFController implements PDFViewerController {
                 ((JScrollPane) docContainer).setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
                 ((JScrollPane) docContainer).setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_NEVER);
             }
+
+            imageLabel = new JLabel();
+            imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            imageLabel.setBackground(Color.BLACK);
+
+            viewerPane = new JPanel(new CardLayout());
+            viewerPane.setBackground(Color.BLACK);
+            viewerPane.add(docContainer, VIEW_CARD);
+            viewerPane.add(imageLabel, IMAGE_CARD);
         }
 
         SwingController getController() {
@@ -196,7 +425,7 @@ public class IcePDFController implements PDFViewerController {
         }
 
         Container getViewerPane() {
-            return getDocContainer();
+            return viewerPane;
         }
 
         Container getDocContainer() {
@@ -212,15 +441,188 @@ public class IcePDFController implements PDFViewerController {
         }
 
         void loadNewFile(Document pdf) {
+            showCard(VIEW_CARD);
+
             controller.openDocument(pdf, "PechaKuchaPDF");
         }
 
-        void prevPage() {
+        /**
+         * Changes to the previous page.
+         *
+         * @return whether the page was displayed from the pre-rasterized pages
+         */
+        boolean prevPage() {
             controller.goToDeltaPage(-controller.getDocumentViewController().getDocumentView().getNextPageIncrement());
+
+            return displayCurrentPage();
         }
 
-        void nextPage() {
+        /**
+         * Changes to the next page.
+         *
+         * @return whether the page was displayed from the pre-rasterized pages
+         */
+        boolean nextPage() {
             controller.goToDeltaPage(controller.getDocumentViewController().getDocumentView().getNextPageIncrement());
+
+            return displayCurrentPage();
+        }
+
+        /**
+         * Changes to a page.
+         *
+         * @param page the number of the page, starting at 0
+         * @return whether the page was displayed from the pre-rasterized pages
+         */
+        boolean showPage(int page) {
+            controller.showPage(page);
+
+            return displayCurrentPage();
+        }
+
+        /**
+         * Displays the pre-rasterized version of the current page if it is ready, otherwise the view of IcePDF
+         * painting the page. A page rasterized for all panels is not painted by IcePDF, so it is only rendered once:
+         * the current card stays up until the page is rasterized and is then replaced on the EDT, unless another page
+         * has been selected in the meantime. Only if the rasterization fails, the view of IcePDF is shown instead.
+         *
+         * @return whether the page was displayed from the pre-rasterized pages without waiting
+         */
+        private boolean displayCurrentPage() {
+            long requestedAt = System.nanoTime();
+
+            if (rasterized == null) {
+                return false;
+            }
+
+            int page = controller.getCurrentPageNumber();
+            CompletableFuture<AcceleratedSlideIcon> image = getScaledImage(page);
+
+            if (image.isDone() && !image.isCompletedExceptionally()) {
+                AcceleratedSlideIcon icon = image.join();
+                icon.markShown(requestedAt);
+
+                imageLabel.setIcon(icon);
+                showCard(IMAGE_CARD);
+                return true;
+            }
+
+            if (!sharedRasterization) {
+                showCard(VIEW_CARD);
+                return false;
+            }
+
+            image.whenCompleteAsync((icon, err) -> {
+                if (page != controller.getCurrentPageNumber()) {
+                    return;
+                }
+
+                if (err != null) {
+                    LOG.warning("Could not rasterize page " + (page + 1) + ": " + (err instanceof CompletionException ? err.getCause() : err));
+                    showCard(VIEW_CARD);
+                    return;
+                }
+
+                icon.markShown(requestedAt);
+
+                imageLabel.setIcon(icon);
+                showCard(IMAGE_CARD);
+            }, SwingUtilities::invokeLater);
+
+            return false;
+        }
+
+        /**
+         * Returns a pre-rasterized page scaled to the size of this panel, starting the scaling if necessary.
+         *
+         * @param page the number of the page, starting at 0
+         * @return a future completed with the scaled page
+         */
+        private CompletableFuture<AcceleratedSlideIcon> getScaledImage(int page) {
+            ScaledImageCache.Handle handle = images.get(page);
+
+            if (handle == null || handle.getImage().isCompletedExceptionally()) {
+                evict(rasterized, page);
+
+                PageCache cache = rasterized;
+                Dimension box = viewerPane.getSize();
+                GraphicsConfiguration gc = imageLabel.getGraphicsConfiguration();
+                ScaledImageCache.Key key = new ScaledImageCache.Key(cache, page, box, ImageScaler.Algorithm.PROGRESSIVE_BILINEAR);
+
+                handle = ScaledImageCache.getInstance().acquire(key, gc, AcceleratedSlideIcon.Acceleration.MANAGED,
+                        () -> cache.get(page).thenApplyAsync(raster -> {
+                            BufferedImage fitted = raster;
+
+                            // only panels smaller than the rasterized page have to scale it
+                            if (raster.getWidth() > box.width || raster.getHeight() > box.height) {
+                                Dimension scaledDim = ImageScaler.fitInto(raster.getWidth(), raster.getHeight(), box);
+                                fitted = ImageScaler.scale(raster, scaledDim.width, scaledDim.height, ImageScaler.Algorithm.PROGRESSIVE_BILINEAR);
+                            }
+
+                            return fitted;
+                        }), fitted -> AcceleratedSlideIcon.create(fitted, gc, AcceleratedSlideIcon.Acceleration.MANAGED,
+                                flipStatistics));
+                images.put(page, handle);
+            }
+
+            return handle.getImage();
+        }
+
+        /**
+         * Starts scaling the pages kept by the cache of pre-rasterized pages.
+         */
+        void prefetchImages() {
+            if (rasterized != null) {
+                rasterized.getWindowPages().forEach(this::getScaledImage);
+            }
+        }
+
+        /**
+         * Drops the scaled version of a page evicted from a cache of pre-rasterized pages.
+         *
+         * @param cache the cache the page was evicted from
+         * @param page  the number of the page, starting at 0
+         */
+        void evict(PageCache cache, int page) {
+            if (cache != rasterized) {
+                return;
+            }
+
+            ScaledImageCache.Handle handle = images.remove(page);
+
+            if (handle != null) {
+                ScaledImageCache.getInstance().release(handle);
+            }
+        }
+
+        /**
+         * Sets the cache of pre-rasterized pages displayed by this panel, dropping all pages scaled before.
+         *
+         * @param rasterized the {@link PageCache} or null
+         */
+        void setRasterizedPages(PageCache rasterized) {
+            images.values().forEach(ScaledImageCache.getInstance()::release);
+            images.clear();
+
+            this.rasterized = rasterized;
+        }
+
+        /**
+         * Shows a card of the viewer-pane.
+         *
+         * @param card the name of the card
+         */
+        private void showCard(String card) {
+            ((CardLayout) viewerPane.getLayout()).show(viewerPane, card);
+        }
+
+        void setSlideVisible(boolean visible) {
+            getDocContainer().setVisible(visible);
+            imageLabel.setVisible(visible);
+        }
+
+        boolean isSlideVisible() {
+            return getDocContainer().isVisible() && imageLabel.isVisible();
         }
 
         void fitViewer() {
@@ -239,6 +641,8 @@ public class IcePDFController implements PDFViewerController {
                 controller.getDocumentViewController().setFitMode(DocumentViewController.PAGE_FIT_WINDOW_WIDTH);
             }
 
+            showCard(VIEW_CARD);
+
             LOG.info("Fitted Doc-Container");
         }
     }
@@ -0,0 +1,218 @@
+package logic;
+
+import logic.pdftoppm.RenderResolution;
+import org.icepdf.core.exceptions.PDFException;
+import org.icepdf.core.exceptions.PDFSecurityException;
+import org.icepdf.core.pobjects.Document;
+import org.icepdf.core.pobjects.PDimension;
+import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.util.GraphicsRenderingHints;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A {@link PageSource} rasterizing pages within this JVM using IcePDF's page-image-API.
+ * IcePDF-documents must not be shared between threads, so every thread rendering concurrently borrows a
+ * {@link Document} of its own, which is kept for later pages until the source is closed.
+ */
+public class IcePDFPageSource implements PageSource {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(IcePDFPageSource.class.getName());
+
+    /**
+     * The path of the document.
+     */
+    private final String filePath;
+
+    /**
+     * The number of pages of the document.
+     */
+    private final int pageCount;
+
+    /**
+     * The {@link RenderResolution} of the rendered pages.
+     */
+    private final RenderResolution resolution;
+
+    /**
+     * The opened documents not borrowed by any thread at the moment, guarded by {@link #documents}.
+     */
+    private final ArrayDeque<Document> idleDocuments = new ArrayDeque<>();
+
+    /**
+     * All opened documents, also guarding the idle documents and whether the source has been closed.
+     */
+    private final List<Document> documents = new ArrayList<>();
+
+    /**
+     * Whether the source has been closed, guarded by {@link #documents}.
+     */
+    private boolean closed;
+
+    /**
+     * The Constructor.
+     *
+     * @param filePath   The path to the PDF-document.
+     * @param pageCount  The number of pages of the document.
+     * @param resolution The {@link RenderResolution}.
+     */
+    public IcePDFPageSource(String filePath, int pageCount, RenderResolution resolution) {
+        this.filePath = filePath;
+        this.pageCount = pageCount;
+        this.resolution = resolution;
+    }
+
+    @Override
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public BufferedImage loadPage(int page) throws IOException {
+        Document document = borrowDocument();
+
+        try {
+            PDimension pageDim = document.getPageDimension(page, 0f);
+            float zoom = resolution.getZoom(pageDim.getWidth(), pageDim.getHeight());
+
+            Image image = document.getPageImage(page, GraphicsRenderingHints.PRINT, Page.BOUNDARY_CROPBOX, 0f, zoom);
+
+            if (image == null) {
+                throw new IOException("Could not render page " + (page + 1) + " of file " + filePath);
+            }
+
+            LOG.info("Finished rendering page " + (page + 1) + " of file " + filePath);
+
+            return toOpaqueImage(image);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering page " + (page + 1) + " of file " + filePath, e);
+        } finally {
+            returnDocument(document);
+        }
+    }
+
+    /**
+     * Borrows an opened document, opening another one if all are in use.
+     *
+     * @return The {@link Document}.
+     * @throws IOException If the document cannot be opened.
+     */
+    private Document borrowDocument() throws IOException {
+        Document document;
+
+        synchronized (documents) {
+            if (closed) {
+                throw new IOException("The source of file " + filePath + " has been closed");
+            }
+
+            document = idleDocuments.poll();
+        }
+
+        if (document == null) {
+            document = new Document();
+
+            try {
+                document.setFile(filePath);
+            } catch (PDFException | PDFSecurityException e) {
+                throw new IOException("Could not open file " + filePath, e);
+            }
+
+            synchronized (documents) {
+                if (!closed) {
+                    documents.add(document);
+                    return document;
+                }
+            }
+
+            document.dispose();
+            throw new IOException("The source of file " + filePath + " has been closed");
+        }
+
+        return document;
+    }
+
+    /**
+     * Returns a borrowed document, disposing it if the source has been closed in the meantime. The closed-flag is
+     * checked under the same lock the source is closed with, so no document is returned to a drained pool.
+     *
+     * @param document The {@link Document}.
+     */
+    private void returnDocument(Document document) {
+        synchronized (documents) {
+            if (!closed) {
+                idleDocuments.add(document);
+                return;
+            }
+        }
+
+        document.dispose();
+    }
+
+    /**
+     * Converts a rendered page into an opaque image, if IcePDF did not return one.
+     *
+     * @param image The rendered page.
+     * @return The opaque image.
+     */
+    private static BufferedImage toOpaqueImage(Image image) {
+        if (image instanceof BufferedImage && ((BufferedImage) image).getTransparency() == Transparency.OPAQUE) {
+            return (BufferedImage) image;
+        }
+
+        BufferedImage opaque = new BufferedImage(image.getWidth(null), image.getHeight(null), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = opaque.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, opaque.getWidth(), opaque.getHeight());
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        image.flush();
+
+        return opaque;
+    }
+
+    @Override
+    public void close() {
+        List<Document> idle;
+
+        synchronized (documents) {
+            closed = true;
+
+            // borrowed documents are disposed as soon as they are returned
+            idle = new ArrayList<>(idleDocuments);
+            idleDocuments.clear();
+
+            LOG.fine("Closed " + documents.size() + " documents of file " + filePath);
+            documents.clear();
+        }
+
+        idle.forEach(Document::dispose);
+    }
+}
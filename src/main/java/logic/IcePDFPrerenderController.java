@@ -0,0 +1,63 @@
+package logic;
+
+import logic.pdftoppm.RenderCancellation;
+import logic.pdftoppm.RenderResolution;
+import org.icepdf.core.pobjects.Document;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A {@link PDFViewerController} pre-rendering all pages like the {@link PDFToPPMLocalController}, but rasterizing
+ * them within this JVM using IcePDF on the threads of the {@link logic.pdftoppm.RenderScheduler}.
+ * Therefore it offers quick page changes and saving of pre-rendered presentations without poppler-utils installed.
+ */
+public class IcePDFPrerenderController extends PDFToPPMLocalController {
+
+    /**
+     * The constructor.
+     */
+    public IcePDFPrerenderController() {
+        super();
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param resolution the {@link RenderResolution} the pages are rendered at
+     */
+    public IcePDFPrerenderController(RenderResolution resolution) {
+        super(resolution);
+    }
+
+    @Override
+    protected PageSource createPageSource(String filePath, int pageCount, RenderResolution pageResolution,
+                                          RenderCancellation cancellation) {
+        return new IcePDFPageSource(filePath, pageCount, pageResolution);
+    }
+
+    @Override
+    protected boolean supportsBatchedRendering() {
+        return false;
+    }
+
+    @Override
+    protected String getRendererVersion() {
+        return "icepdf " + Document.getLibraryVersion();
+    }
+}
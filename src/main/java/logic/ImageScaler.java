@@ -0,0 +1,382 @@
+package logic;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.stream.IntStream;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Scales slide-images eagerly into finished {@link BufferedImage}s. The rows of an image are processed in parallel,
+ * so scaling a single large page already uses every core.
+ */
+public class ImageScaler {
+
+    /**
+     * The available scaling-algorithms.
+     */
+    public enum Algorithm {
+        /**
+         * {@link Image#getScaledInstance(int, int, int)} using {@link Image#SCALE_SMOOTH}, drawn into a
+         * {@link BufferedImage} at once. Slow, only kept for comparison.
+         */
+        AREA_AVERAGING,
+
+        /**
+         * Repeatedly halves the image using a 2x2 box-filter, followed by a single bilinear step to the target-size.
+         */
+        PROGRESSIVE_BILINEAR,
+
+        /**
+         * A separable Lanczos-filter with a radius of three pixels. The sharpest, but also slowest choice.
+         */
+        LANCZOS
+    }
+
+    /**
+     * The radius of the Lanczos-kernel.
+     */
+    private static final int LANCZOS_RADIUS = 3;
+
+    /**
+     * The color-model of {@link BufferedImage#TYPE_INT_RGB}.
+     */
+    private static final DirectColorModel RGB = new DirectColorModel(24, 0xff0000, 0x00ff00, 0x0000ff);
+
+    /**
+     * Computes the largest size an image fits into a box with, keeping its aspect-ratio.
+     *
+     * @param imageWidth  The width of the image.
+     * @param imageHeight The height of the image.
+     * @param box         The box.
+     * @return The size, at least 1x1.
+     */
+    public static Dimension fitInto(int imageWidth, int imageHeight, Dimension box) {
+        double boxRatio = box.getHeight() / box.getWidth();
+        double imageRatio = (double) imageHeight / imageWidth;
+
+        if (boxRatio < imageRatio) {
+            return new Dimension(Math.max(1, (int) (box.height / imageRatio)), Math.max(1, box.height));
+        } else {
+            return new Dimension(Math.max(1, box.width), Math.max(1, (int) (box.width * imageRatio)));
+        }
+    }
+
+    /**
+     * Scales an image.
+     *
+     * @param image     The image.
+     * @param width     The target-width.
+     * @param height    The target-height.
+     * @param algorithm The {@link Algorithm}.
+     * @return The scaled image of type {@link BufferedImage#TYPE_INT_RGB}.
+     */
+    public static BufferedImage scale(BufferedImage image, int width, int height, Algorithm algorithm) {
+        switch (algorithm) {
+            case AREA_AVERAGING:
+                return scaleAreaAveraging(image, width, height);
+
+            case LANCZOS:
+                return toImage(scaleLanczos(toRGB(image), image.getWidth(), image.getHeight(), width, height), width, height);
+
+            case PROGRESSIVE_BILINEAR:
+            default:
+                return toImage(scaleProgressiveBilinear(toRGB(image), image.getWidth(), image.getHeight(), width, height), width, height);
+        }
+    }
+
+    /**
+     * Scales using {@link Image#getScaledInstance(int, int, int)}, forcing the lazy filter to run at once.
+     */
+    private static BufferedImage scaleAreaAveraging(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        g.drawImage(image.getScaledInstance(width, height, Image.SCALE_SMOOTH), 0, 0, null);
+        g.dispose();
+
+        return scaled;
+    }
+
+    /**
+     * Halves the pixels using a box-filter as long as the result is not smaller than the target, then scales the
+     * rest of the way bilinearly.
+     */
+    private static int[] scaleProgressiveBilinear(int[] pixels, int width, int height, int targetWidth, int targetHeight) {
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            pixels = halve(pixels, width, height);
+            width /= 2;
+            height /= 2;
+        }
+
+        if (width == targetWidth && height == targetHeight) {
+            return pixels;
+        }
+
+        return bilinear(pixels, width, height, targetWidth, targetHeight);
+    }
+
+    /**
+     * Halves both dimensions using a 2x2 box-filter.
+     */
+    private static int[] halve(int[] src, int width, int height) {
+        int halfWidth = width / 2;
+        int halfHeight = height / 2;
+        int[] dst = new int[halfWidth * halfHeight];
+
+        IntStream.range(0, halfHeight).parallel().forEach(y -> {
+            int row0 = 2 * y * width;
+            int row1 = row0 + width;
+
+            for (int x = 0; x < halfWidth; x++) {
+                int a = src[row0 + 2 * x];
+                int b = src[row0 + 2 * x + 1];
+                int c = src[row1 + 2 * x];
+                int d = src[row1 + 2 * x + 1];
+
+                int r = (((a >> 16) & 0xff) + ((b >> 16) & 0xff) + ((c >> 16) & 0xff) + ((d >> 16) & 0xff) + 2) >> 2;
+                int g = (((a >> 8) & 0xff) + ((b >> 8) & 0xff) + ((c >> 8) & 0xff) + ((d >> 8) & 0xff) + 2) >> 2;
+                int bl = ((a & 0xff) + (b & 0xff) + (c & 0xff) + (d & 0xff) + 2) >> 2;
+
+                dst[y * halfWidth + x] = (r << 16) | (g << 8) | bl;
+            }
+        });
+
+        return dst;
+    }
+
+    /**
+     * Scales using bilinear interpolation between the pixel-centers.
+     */
+    private static int[] bilinear(int[] src, int width, int height, int targetWidth, int targetHeight) {
+        int[] dst = new int[targetWidth * targetHeight];
+        double scaleX = (double) width / targetWidth;
+        double scaleY = (double) height / targetHeight;
+
+        IntStream.range(0, targetHeight).parallel().forEach(y -> {
+            double sy = Math.max(0, Math.min(height - 1, (y + 0.5) * scaleY - 0.5));
+            int y0 = (int) sy;
+            int y1 = Math.min(y0 + 1, height - 1);
+            double fy = sy - y0;
+
+            for (int x = 0; x < targetWidth; x++) {
+                double sx = Math.max(0, Math.min(width - 1, (x + 0.5) * scaleX - 0.5));
+                int x0 = (int) sx;
+                int x1 = Math.min(x0 + 1, width - 1);
+                double fx = sx - x0;
+
+                int p00 = src[y0 * width + x0];
+                int p01 = src[y0 * width + x1];
+                int p10 = src[y1 * width + x0];
+                int p11 = src[y1 * width + x1];
+
+                int pixel = 0;
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    double top = ((p00 >> shift) & 0xff) * (1 - fx) + ((p01 >> shift) & 0xff) * fx;
+                    double bottom = ((p10 >> shift) & 0xff) * (1 - fx) + ((p11 >> shift) & 0xff) * fx;
+                    pixel |= ((int) (top * (1 - fy) + bottom * fy + 0.5)) << shift;
+                }
+
+                dst[y * targetWidth + x] = pixel;
+            }
+        });
+
+        return dst;
+    }
+
+    /**
+     * Scales using a separable Lanczos-filter, first horizontally, then vertically.
+     */
+    private static int[] scaleLanczos(int[] src, int width, int height, int targetWidth, int targetHeight) {
+        Kernel horizontal = new Kernel(width, targetWidth);
+        Kernel vertical = new Kernel(height, targetHeight);
+
+        // horizontal pass, keeping the channels as floats until the vertical pass is done
+        float[] tmp = new float[targetWidth * height * 3];
+
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int x = 0; x < targetWidth; x++) {
+                float r = 0, g = 0, b = 0;
+                int start = horizontal.start[x];
+
+                for (int i = 0; i < horizontal.size[x]; i++) {
+                    int p = src[y * width + start + i];
+                    float w = horizontal.weights[x][i];
+
+                    r += ((p >> 16) & 0xff) * w;
+                    g += ((p >> 8) & 0xff) * w;
+                    b += (p & 0xff) * w;
+                }
+
+                int t = (y * targetWidth + x) * 3;
+                tmp[t] = r;
+                tmp[t + 1] = g;
+                tmp[t + 2] = b;
+            }
+        });
+
+        int[] dst = new int[targetWidth * targetHeight];
+
+        IntStream.range(0, targetHeight).parallel().forEach(y -> {
+            int start = vertical.start[y];
+
+            for (int x = 0; x < targetWidth; x++) {
+                float r = 0, g = 0, b = 0;
+
+                for (int i = 0; i < vertical.size[y]; i++) {
+                    int t = ((start + i) * targetWidth + x) * 3;
+                    float w = vertical.weights[y][i];
+
+                    r += tmp[t] * w;
+                    g += tmp[t + 1] * w;
+                    b += tmp[t + 2] * w;
+                }
+
+                dst[y * targetWidth + x] = (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+            }
+        });
+
+        return dst;
+    }
+
+    /**
+     * Rounds and clamps a channel-value.
+     */
+    private static int clamp(float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * Reads the pixels of an image as packed RGB-values, reading the raster directly for the common image-types.
+     */
+    private static int[] toRGB(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData().clone();
+        }
+
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            byte[] bgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+            int[] rgb = new int[width * height];
+
+            IntStream.range(0, height).parallel().forEach(y -> {
+                for (int i = y * width; i < (y + 1) * width; i++) {
+                    rgb[i] = ((bgr[3 * i + 2] & 0xff) << 16) | ((bgr[3 * i + 1] & 0xff) << 8) | (bgr[3 * i] & 0xff);
+                }
+            });
+
+            return rgb;
+        }
+
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Wraps packed RGB-values into an image without copying them.
+     */
+    private static BufferedImage toImage(int[] pixels, int width, int height) {
+        int[] masks = {RGB.getRedMask(), RGB.getGreenMask(), RGB.getBlueMask()};
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length), width, height, width, masks, null);
+
+        return new BufferedImage(RGB, raster, false, null);
+    }
+
+
+    /**
+     * The precomputed Lanczos-weights of every target-pixel of one dimension.
+     */
+    private static class Kernel {
+        /**
+         * The first source-pixel contributing to each target-pixel.
+         */
+        final int[] start;
+
+        /**
+         * The number of source-pixels contributing to each target-pixel.
+         */
+        final int[] size;
+
+        /**
+         * The normalized weights of the contributing source-pixels.
+         */
+        final float[][] weights;
+
+        /**
+         * The Constructor.
+         *
+         * @param sourceSize The size of the source-dimension.
+         * @param targetSize The size of the target-dimension.
+         */
+        Kernel(int sourceSize, int targetSize) {
+            double scale = (double) sourceSize / targetSize;
+            // widen the kernel when downscaling, so every source-pixel contributes
+            double support = LANCZOS_RADIUS * Math.max(1, scale);
+            double filterScale = Math.max(1, scale);
+
+            start = new int[targetSize];
+            size = new int[targetSize];
+            weights = new float[targetSize][];
+
+            for (int i = 0; i < targetSize; i++) {
+                double center = (i + 0.5) * scale;
+                int first = Math.max(0, (int) Math.floor(center - support));
+                int last = Math.min(sourceSize - 1, (int) Math.ceil(center + support));
+
+                float[] w = new float[last - first + 1];
+                double sum = 0;
+
+                for (int j = first; j <= last; j++) {
+                    double value = lanczos((j + 0.5 - center) / filterScale);
+                    w[j - first] = (float) value;
+                    sum += value;
+                }
+
+                for (int j = 0; j < w.length; j++) {
+                    w[j] /= sum;
+                }
+
+                start[i] = first;
+                size[i] = w.length;
+                weights[i] = w;
+            }
+        }
+
+        /**
+         * The Lanczos-kernel.
+         */
+        private static double lanczos(double x) {
+            if (x == 0) {
+                return 1;
+            }
+
+            if (Math.abs(x) >= LANCZOS_RADIUS) {
+                return 0;
+            }
+
+            double pix = Math.PI * x;
+            return LANCZOS_RADIUS * Math.sin(pix) * Math.sin(pix / LANCZOS_RADIUS) / (pix * pix);
+        }
+    }
+}
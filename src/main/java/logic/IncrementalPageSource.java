@@ -0,0 +1,211 @@
+package logic;
+
+import logic.pktool.DeckReader;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A {@link PageSource} reusing the pages of previous renderings whose {@link PageFingerprints} are unchanged and only
+ * rendering the pages which differ, e.g. when a speaker sends an updated version of a presentation with a single
+ * typo fixed.
+ */
+public class IncrementalPageSource implements PageSource {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(IncrementalPageSource.class.getName());
+
+    /**
+     * The source rendering the changed pages.
+     */
+    private final PageSource renderer;
+
+    /**
+     * The previous rendering containing each page or null, if the page has to be rendered.
+     */
+    private final DeckReader[] previousRenderings;
+
+    /**
+     * The number of each page within its previous rendering.
+     */
+    private final int[] previousPages;
+
+    /**
+     * The previous renderings pages are reused from.
+     */
+    private final List<DeckReader> readers;
+
+    private final AtomicInteger reused = new AtomicInteger();
+
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    /**
+     * The Constructor.
+     *
+     * @param renderer           The source rendering the changed pages.
+     * @param previousRenderings The previous rendering containing each page or null.
+     * @param previousPages      The number of each page within its previous rendering.
+     * @param readers            The previous renderings pages are reused from.
+     */
+    private IncrementalPageSource(PageSource renderer, DeckReader[] previousRenderings, int[] previousPages,
+                                  List<DeckReader> readers) {
+        this.renderer = renderer;
+        this.previousRenderings = previousRenderings;
+        this.previousPages = previousPages;
+        this.readers = readers;
+    }
+
+    /**
+     * Matches the pages of a document against previous renderings, the first rendering containing a page winning.
+     *
+     * @param fingerprints The fingerprints of the pages of the document.
+     * @param candidates   Pre-rendered presentations in the {@link logic.pktool.DeckFormat}, preferred ones first.
+     * @param renderer     The source rendering the changed pages.
+     * @return The source or null, if no page can be reused.
+     */
+    public static IncrementalPageSource create(byte[][] fingerprints, List<File> candidates, PageSource renderer) {
+        // equal pages, e.g. repeated section-slides, share a fingerprint
+        Map<ByteBuffer, List<Integer>> pagesByFingerprint = new HashMap<>();
+        for (int p = 0; p < fingerprints.length; p++) {
+            pagesByFingerprint.computeIfAbsent(ByteBuffer.wrap(fingerprints[p]), f -> new ArrayList<>()).add(p);
+        }
+
+        DeckReader[] previousRenderings = new DeckReader[fingerprints.length];
+        int[] previousPages = new int[fingerprints.length];
+        List<DeckReader> readers = new ArrayList<>();
+
+        for (File candidate : candidates) {
+            DeckReader reader;
+
+            try {
+                reader = new DeckReader(candidate);
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Skipping unreadable rendering " + candidate, e);
+                continue;
+            }
+
+            boolean used = false;
+
+            for (int previousPage = 0; previousPage < reader.getPageCount(); previousPage++) {
+                byte[] fingerprint = reader.getFingerprint(previousPage);
+
+                if (fingerprint == null) {
+                    break;
+                }
+
+                for (int p : pagesByFingerprint.getOrDefault(ByteBuffer.wrap(fingerprint), Collections.emptyList())) {
+                    if (previousRenderings[p] == null) {
+                        previousRenderings[p] = reader;
+                        previousPages[p] = previousPage;
+                        used = true;
+                    }
+                }
+            }
+
+            if (used) {
+                readers.add(reader);
+            } else {
+                reader.close();
+            }
+        }
+
+        if (readers.isEmpty()) {
+            return null;
+        }
+
+        IncrementalPageSource source = new IncrementalPageSource(renderer, previousRenderings, previousPages, readers);
+        LOG.info("Reusing " + source.getReusablePages() + " of " + fingerprints.length + " pages from "
+                + readers.size() + " previous renderings");
+
+        return source;
+    }
+
+    @Override
+    public int getPageCount() {
+        return previousRenderings.length;
+    }
+
+    /**
+     * Decodes a page from its previous rendering or renders it, if it has changed or cannot be decoded.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return The page.
+     * @throws IOException If the page cannot be rendered.
+     */
+    @Override
+    public BufferedImage loadPage(int page) throws IOException {
+        DeckReader previous = previousRenderings[page];
+
+        if (previous != null) {
+            try {
+                BufferedImage image = previous.loadPage(previousPages[page]);
+                reused.incrementAndGet();
+
+                return image;
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not reuse page " + (page + 1) + ", rendering it", e);
+            }
+        }
+
+        rendered.incrementAndGet();
+        return renderer.loadPage(page);
+    }
+
+    /**
+     * Returns the number of pages found in previous renderings.
+     *
+     * @return The number of pages.
+     */
+    public int getReusablePages() {
+        int pages = 0;
+
+        for (DeckReader previous : previousRenderings) {
+            if (previous != null) {
+                pages++;
+            }
+        }
+
+        return pages;
+    }
+
+    @Override
+    public void close() {
+        readers.forEach(DeckReader::close);
+        renderer.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("reused %d, re-rendered %d of %d pages", reused.get(), rendered.get(), getPageCount());
+    }
+}
@@ -0,0 +1,117 @@
+package logic;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A snapshot of the progress of loading a file, published after every loaded page.
+ */
+public class LoadProgress {
+
+    /**
+     * The number of pages loaded so far.
+     */
+    private final int pagesDone;
+
+    /**
+     * The number of pages to be loaded.
+     */
+    private final int pageCount;
+
+    /**
+     * The number of bytes of the pixels of all pages loaded so far.
+     */
+    private final long bytesDecoded;
+
+    /**
+     * The time in milliseconds the last page took to be rendered.
+     */
+    private final long pageMillis;
+
+    /**
+     * The time in milliseconds since the loading started.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * The Constructor.
+     *
+     * @param pagesDone     The number of pages loaded so far.
+     * @param pageCount     The number of pages to be loaded.
+     * @param bytesDecoded  The number of bytes of the pixels of all pages loaded so far.
+     * @param pageMillis    The time the last page took to be rendered.
+     * @param elapsedMillis The time since the loading started.
+     */
+    public LoadProgress(int pagesDone, int pageCount, long bytesDecoded, long pageMillis, long elapsedMillis) {
+        this.pagesDone = pagesDone;
+        this.pageCount = pageCount;
+        this.bytesDecoded = bytesDecoded;
+        this.pageMillis = pageMillis;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getPagesDone() {
+        return pagesDone;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public long getBytesDecoded() {
+        return bytesDecoded;
+    }
+
+    public long getPageMillis() {
+        return pageMillis;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Estimates the time remaining from the throughput observed so far.
+     *
+     * @return The estimated time in milliseconds or -1, if no page has been loaded yet.
+     */
+    public long getEtaMillis() {
+        if (pagesDone <= 0) {
+            return -1;
+        }
+
+        return elapsedMillis * (pageCount - pagesDone) / pagesDone;
+    }
+
+    /**
+     * Returns whether all pages have been loaded.
+     *
+     * @return whether the loading is finished
+     */
+    public boolean isFinished() {
+        return pagesDone >= pageCount;
+    }
+
+    @Override
+    public String toString() {
+        long eta = getEtaMillis();
+
+        return String.format("%d/%d pages, %.1f MB decoded, last page %d ms, %s", pagesDone, pageCount,
+                bytesDecoded / (1024.0 * 1024.0), pageMillis, eta < 0 ? "ETA unknown" : "ETA " + (eta + 999) / 1000 + " s");
+    }
+}
@@ -0,0 +1,124 @@
+package logic;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Tracks the pages loaded for a file and publishes a {@link LoadProgress} to a {@link LoadProgressListener} after
+ * every page. Only pages expected to be loaded are counted, each of them once.
+ */
+public class LoadProgressTracker {
+
+    /**
+     * The pages expected to be loaded, which have not been loaded yet.
+     */
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The number of pages expected to be loaded.
+     */
+    private volatile int pageCount;
+
+    /**
+     * The listener or null.
+     */
+    private final LoadProgressListener listener;
+
+    /**
+     * The {@link System#nanoTime()} the loading started at.
+     */
+    private final long start = System.nanoTime();
+
+    /**
+     * The number of bytes of the pixels of all pages loaded so far.
+     */
+    private final AtomicLong bytesDecoded = new AtomicLong();
+
+    /**
+     * The Constructor.
+     *
+     * @param listener The {@link LoadProgressListener} or null.
+     */
+    public LoadProgressTracker(LoadProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the pages expected to be loaded. Must be called before any of them is loaded.
+     *
+     * @param pages The numbers of the pages.
+     */
+    public void expect(Collection<Integer> pages) {
+        pending.addAll(pages);
+        pageCount = pending.size();
+    }
+
+    /**
+     * Records a loaded page and notifies the listener.
+     *
+     * @param page       The number of the page, starting at 0.
+     * @param image      The loaded page.
+     * @param pageMillis The time the page took to be rendered.
+     */
+    public void pageLoaded(int page, BufferedImage image, long pageMillis) {
+        if (listener == null || !pending.remove(page)) {
+            return;
+        }
+
+        long bytes = bytesDecoded.addAndGet(PageCache.sizeOf(image));
+        int done = pageCount - pending.size();
+
+        listener.progress(new LoadProgress(done, pageCount, bytes, pageMillis, (System.nanoTime() - start) / 1_000_000));
+    }
+
+    /**
+     * Wraps a {@link PageSource}, so every page it loads is recorded with the time it took.
+     *
+     * @param source The source.
+     * @return The tracked source.
+     */
+    public PageSource track(PageSource source) {
+        return new PageSource() {
+            @Override
+            public int getPageCount() {
+                return source.getPageCount();
+            }
+
+            @Override
+            public BufferedImage loadPage(int page) throws IOException {
+                long pageStart = System.nanoTime();
+                BufferedImage image = source.loadPage(page);
+
+                pageLoaded(page, image, (System.nanoTime() - pageStart) / 1_000_000);
+                return image;
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+}
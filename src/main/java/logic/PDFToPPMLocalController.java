@@ -1,20 +1,50 @@
 package logic;
 
-import logic.pdftoppm.PDFToPPMConverter;
+import logic.pdftoppm.OutputFormat;
+import logic.pdftoppm.PDFToPPMPageSource;
+import logic.pdftoppm.PDFToPPMRangeConverter;
+import logic.pdftoppm.PageOutcome;
+import logic.pdftoppm.PageRenderedListener;
+import logic.pdftoppm.RenderCancellation;
+import logic.pdftoppm.RenderMode;
+import logic.pdftoppm.RenderReport;
+import logic.pdftoppm.RenderResolution;
+import logic.pdftoppm.RenderScheduler;
+import logic.pktool.DeckFormat;
+import logic.pktool.DeckReader;
+import logic.pktool.DeckWriter;
+import logic.pktool.PageCodec;
+import logic.pktool.RenderCache;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.icepdf.core.exceptions.PDFException;
 import org.icepdf.core.exceptions.PDFSecurityException;
+import org.icepdf.core.pobjects.Document;
+import org.icepdf.core.pobjects.PDimension;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyBoundsAdapter;
+import java.awt.event.HierarchyEvent;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -46,7 +76,13 @@ public class PDFToPPMLocalController implements PDFViewerController, Saveable {
     /**
      * The originally converted and loaded images.
      */
-    private ArrayList<ImageIcon> originalImages;
+    private PageCache pages;
+
+    /**
+     * The pages scaled to fit into the display-profiles of a loaded pre-rendered presentation by the boxes of the
+     * profiles, empty if it does not contain profiles.
+     */
+    private Map<Dimension, PageCache> profilePages = Collections.emptyMap();
 
     /**
      * A list containing the rendered images and panels currently in use.
@@ -54,16 +90,123 @@ public class PDFToPPMLocalController implements PDFViewerController, Saveable {
     private ArrayList<PDFPrerenderedImageWrapper> imageWrapper;
 
     /**
-     * The number of the currently displayed page.
+     * The number of the currently displayed page, read on the EDT when a scaled page is shown.
+     */
+    private volatile int currImageNumber = 0;
+
+    /**
+     * How the pdftoppm-processes are used when rendering a new file.
+     */
+    private RenderMode renderMode = RenderMode.BATCHED;
+
+    /**
+     * The format pdftoppm writes the rendered pages in.
+     */
+    private OutputFormat outputFormat = OutputFormat.PPM;
+
+    /**
+     * Whether the first page of a new file is displayed as soon as it is rendered.
+     */
+    private boolean progressiveLoading = true;
+
+    /**
+     * The number of pages kept before and after the current page or {@link PageCache#UNBOUNDED}.
+     */
+    private int pageCacheWindow = PageCache.UNBOUNDED;
+
+    /**
+     * The maximum number of bytes pages outside of the window may take.
+     */
+    private long pageCacheMemoryBudget = Long.MAX_VALUE;
+
+    /**
+     * The codec the pages are compressed with when saving the presentation.
+     */
+    private PageCodec deckCodec = PageCodec.DEFLATE;
+
+    /**
+     * The compression-level passed to the {@link #deckCodec}.
+     */
+    private int deckCompressionLevel = PageCodec.DEFAULT_LEVEL;
+
+    /**
+     * Whether pages differing from their previous page in only a few tiles are saved as deltas.
+     */
+    private boolean deckDeltaEncoding = true;
+
+    /**
+     * The boxes of the display-profiles the pages are additionally saved for, scaled to fit into them.
+     */
+    private List<Dimension> deckProfiles = Collections.emptyList();
+
+    /**
+     * A future completed with the fingerprints of the PDF-content of the displayed pages, see {@link PageFingerprints},
+     * or null. They are computed in the background while a file is rendered.
+     */
+    private volatile CompletableFuture<byte[][]> pageFingerprints = CompletableFuture.completedFuture(null);
+
+    /**
+     * The file the displayed pages are mapped from by {@link #loadPresentationFromFile(File)} or null. It has to be
+     * unmapped before it is overwritten, as Windows refuses to replace a mapped file.
+     */
+    private volatile File mappedDeckFile;
+
+    /**
+     * The maximum number of previous renderings searched for unchanged pages.
+     */
+    private static final int MAX_PREVIOUS_RENDERINGS = 32;
+
+    /**
+     * The cache rendered files are looked up in before rendering and added to afterwards, or null.
+     */
+    private RenderCache renderCache = RenderCache.getDefault();
+
+    /**
+     * The algorithm used for scaling the pages to the size of the panels.
+     */
+    private ImageScaler.Algorithm scalingAlgorithm = ImageScaler.Algorithm.PROGRESSIVE_BILINEAR;
+
+    /**
+     * The time in milliseconds the size of a panel has to stay unchanged before its pages are rescaled.
      */
-    private int currImageNumber = 0;
+    private static final int RESCALE_DELAY = 250;
 
     /**
-     * The default constructor.
+     * How the scaled pages are prepared for the screens of the panels.
+     */
+    private AcceleratedSlideIcon.Acceleration acceleration = AcceleratedSlideIcon.Acceleration.MANAGED;
+
+    /**
+     * The latencies between page-changes and the first paint of the new page.
+     */
+    private final FlipStatistics flipStatistics = new FlipStatistics();
+
+    /**
+     * Notified about the progress of loads which are not given a listener of their own, or null.
+     */
+    private LoadProgressListener progressListener;
+
+    /**
+     * The resolution the pages are rendered at, usually fitting the screens the panels are displayed on.
+     */
+    private RenderResolution resolution;
+
+    /**
+     * The default constructor, rendering at {@link RenderResolution#DEFAULT} as the panel-sizes are unknown.
      */
     public PDFToPPMLocalController() {
-        this.originalImages = new ArrayList<>();
+        this(RenderResolution.DEFAULT);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param resolution the {@link RenderResolution} the pages are rendered at
+     */
+    public PDFToPPMLocalController(RenderResolution resolution) {
+        this.pages = new PageCache(null, 0);
         this.imageWrapper = new ArrayList<>();
+        this.resolution = resolution;
     }
 
 
@@ -81,7 +224,7 @@ public class PDFToPPMLocalController implements PDFViewerController, Saveable {
 
     @Override
     public boolean isDocumentSelected() {
-        return originalImages.size() > 0;
+        return pages.getPageCount() > 0;
     }
 
     @Override
@@ -91,12 +234,14 @@ public class PDFToPPMLocalController implements PDFViewerController, Saveable {
 
     @Override
     public void fitViewers() {
+        imageWrapper.forEach(PDFPrerenderedImageWrapper::scheduleRescale);
+
         refreshImage();
     }
 
     @Override
     public void nextPage() {
-        if (currImageNumber < originalImages.size() - 1) {
+        if (currImageNumber < pages.getPageCount() - 1) {
             currImageNumber++;
 
             refreshImage();
@@ -119,7 +264,30 @@ public class PDFToPPMLocalController implements PDFViewerController, Saveable {
 
     @Override
     public int getPageCount() {
-        return originalImages.size();
+        return pages.getPageCount();
+    }
+
+    /**
+     * Returns the amount of memory the pixels of the originally loaded images take. All pages are requested at once,
+     * so pages which are not materialized yet are rendered or decoded in parallel.
+     *
+     * @return The number of bytes, assuming three bytes per pixel.
+     */
+    public long getPixelBytes() {
+        List<CompletableFuture<BufferedImage>> images = new ArrayList<>();
+
+        for (int p = 0; p < pages.getPageCount(); p++) {
+            images.add(pages.prefetch(p));
+        }
+
+        long bytes = 0;
+
+        for (CompletableFuture<BufferedImage> page : images) {
+            BufferedImage image = page.join();
+            bytes += (long) image.getWidth() * image.getHeight() * 3;
+        }
+
+        return bytes;
     }
 
     @Override
@@ -172,199 +340,1620 @@ public class PDFToPPMLocalController implements PDFViewerController, Saveable {
      * @throws ExecutionException
      */
     public void loadNewFile(String filePath, boolean scaleAfter) throws IOException, PDFException, PDFSecurityException, InterruptedException, ExecutionException {
-        ProcessBuilder numberOfPagesBuilder = new ProcessBuilder("pdfinfo", filePath);
-        numberOfPagesBuilder.redirectErrorStream(true);
-        Process numberOfPagesProcess = numberOfPagesBuilder.start();
-        numberOfPagesProcess.waitFor();
-
-        BufferedReader br = new BufferedReader(new InputStreamReader(numberOfPagesProcess.getInputStream()));
-        String nopString = "0";
-        String line;
-
-        while ((line = br.readLine()) != null) {
-            if (line.contains("Pages:")) {
-                String[] split = line.split(" ");
-                nopString = split[split.length - 1];
-                break;
-            }
-        }
+        loadNewFile(filePath, scaleAfter, 0);
+    }
 
+    /**
+     * Superfunction used by {@link PDFToPPMLocalController#loadNewFile(String, boolean)}, additional Parameter to
+     * choose the page shown first, e.g. when resuming a presentation using an updated file.
+     * In progressive mode this page is rendered first and displayed as soon as it is ready, while the remaining pages
+     * keep rendering in the background.
+     *
+     * @param filePath   the File-path
+     * @param scaleAfter whether the conversion should trigger the scaling-routine.
+     * @param startPage  the number of the page shown first, starting at 0.
+     * @throws IOException
+     * @throws PDFException
+     * @throws PDFSecurityException
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public void loadNewFile(String filePath, boolean scaleAfter, int startPage) throws IOException, PDFException, PDFSecurityException, InterruptedException, ExecutionException {
+        imageWrapper.forEach(w -> w.getImagePanel().getRootPane().setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR)));
 
-        int nop = Integer.parseInt(nopString);
+        PendingDeck deck = startRendering(filePath, startPage, RenderCancellation.NONE, null);
 
-        originalImages = new ArrayList<>();
-        ArrayList<Future<BufferedImage>> converters = new ArrayList<>();
-        CountDownLatch latch = new CountDownLatch(nop);
-        ExecutorService pool = Executors.newCachedThreadPool();
+        if (!scaleAfter || !progressiveLoading) {
+            deck.allPages.get();
+        }
 
+        installDeck(deck, scaleAfter);
+    }
 
-        LOG.info("Begin rendering images of file " + filePath);
+    /**
+     * Loads a new file in the background, keeping the current one displayed until the first page of the new one
+     * is rendered, or all of its pages if it is not loaded progressively. Cancelling the returned future kills
+     * the running pdftoppm-processes and discards all pages rendered so far.
+     *
+     * @param filePath the File-path
+     * @param listener the {@link LoadProgressListener} notified about rendered pages or null
+     * @return a future completed as soon as the new file is displayed
+     */
+    @Override
+    public CompletableFuture<Void> loadNewFileAsync(String filePath, LoadProgressListener listener) {
+        RenderCancellation cancellation = new RenderCancellation();
+        CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+        loaded.whenComplete((v, err) -> {
+            if (loaded.isCancelled()) {
+                LOG.info("Cancelled loading file " + filePath);
+                cancellation.cancel();
+            }
+        });
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                PendingDeck deck = startRendering(filePath, 0, cancellation, listener);
+                CompletableFuture<?> ready = progressiveLoading ? deck.firstPageRendered : deck.allPages;
+
+                ready.whenComplete((v, err) -> SwingUtilities.invokeLater(() -> {
+                    if (loaded.isDone() || err != null) {
+                        // cancelled in the meantime or failed, the current file stays displayed
+                        cancellation.cancel();
+                        deck.cache.close();
+                        loaded.completeExceptionally(err != null ? err : new CancellationException());
+                        return;
+                    }
+
+                    try {
+                        installDeck(deck, true);
+                        loaded.complete(null);
+                    } catch (RuntimeException e) {
+                        loaded.completeExceptionally(e);
+                    }
+                }));
+            } catch (IOException | PDFException | PDFSecurityException e) {
+                loaded.completeExceptionally(e);
+            }
+        }).whenComplete((v, err) -> {
+            // e.g. a RuntimeException of a PDF without pages, which would otherwise never complete the load
+            if (err != null) {
+                LOG.log(Level.WARNING, "Could not start loading file " + filePath, err);
+                loaded.completeExceptionally(err instanceof CompletionException ? err.getCause() : err);
+            }
+        });
 
-//        ProgressWindow progress = new ProgressWindow(nop);
+        return loaded;
+    }
 
-        imageWrapper.forEach(w -> w.getImagePanel().getRootPane().setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR)));
+    /**
+     * Starts rendering a file into a new cache, without displaying it yet.
+     *
+     * @param filePath     the File-path
+     * @param startPage    the number of the page shown first, starting at 0.
+     * @param cancellation the {@link RenderCancellation} of the rendering
+     * @param listener     the {@link LoadProgressListener} notified about rendered pages or null
+     * @return the {@link PendingDeck}
+     * @throws IOException
+     * @throws PDFException
+     * @throws PDFSecurityException
+     */
+    private PendingDeck startRendering(String filePath, int startPage, RenderCancellation cancellation, LoadProgressListener listener)
+            throws IOException, PDFException, PDFSecurityException {
+        long start = System.currentTimeMillis();
+        DocumentLayout layout = readLayout(filePath);
+        int nop = layout.pageCount;
+        RenderResolution pageResolution = layout.resolution;
+
+        int firstPage = startPage >= 0 && startPage < nop ? startPage : 0;
+
+        PageSource renderer = createPageSource(filePath, nop, pageResolution, cancellation);
+
+        // hashing the file and scanning previous renderings does not delay rendering the first page
+        CompletableFuture<PreviousRendering> previous = CompletableFuture
+                .supplyAsync(() -> findPreviousRendering(filePath, nop, pageResolution, renderer))
+                .exceptionally(err -> {
+                    LOG.log(Level.WARNING, "Could not look for previous renderings of file " + filePath, err);
+                    return new PreviousRendering(renderer, null, null);
+                });
+        DeferredPageSource deferred = new DeferredPageSource(renderer, previous.thenApply(p -> p.source));
+        CompletableFuture<RenderCache.Recording> recording = previous.thenApply(p -> p.recording);
+
+        LoadProgressTracker tracker = new LoadProgressTracker(listener != null ? listener : progressListener);
+        PageSource source = tracker.track(recordPages(deferred, recording));
+        PageCache cache = new PageCache(source, nop, pageCacheWindow, pageCacheMemoryBudget);
+        tracker.expect(cache.getWindowPages(firstPage));
+
+        RenderScheduler scheduler = RenderScheduler.getInstance();
+
+        LOG.info("Begin rendering images of file " + filePath + " at " + pageResolution + " using render-mode "
+                + renderMode + " and " + outputFormat);
+
+        if (cache.isWindowed()) {
+            // only the pages around the first page are rendered now, all others on demand ahead of navigation
+            cache.setCurrentPage(firstPage);
+        } else if (renderMode == RenderMode.BATCHED && supportsBatchedRendering()) {
+            ArrayList<CompletableFuture<BufferedImage>> rendered = new ArrayList<>();
+            for (int i = 0; i < nop; i++) {
+                rendered.add(new CompletableFuture<>());
+                cache.put(i, rendered.get(i));
+            }
 
-        for (int i = 0; i < nop; i++) {
-            PDFToPPMConverter convertTask = new PDFToPPMConverter(i + 1, filePath, latch);
-            Future<BufferedImage> result = pool.submit(convertTask);
-            converters.add(result);
-        }
+            RenderReport report = renderer instanceof PDFToPPMPageSource ? ((PDFToPPMPageSource) renderer).getReport() : null;
 
-        latch.await();
+            PageRenderedListener pageListener = (page, image) -> {
+                if (page <= nop) {
+                    if (report != null) {
+                        report.record(page - 1, PageOutcome.RENDERED, 1, System.currentTimeMillis() - start);
+                    }
 
+                    rendered.get(page - 1).complete(image);
+                    recordPage(recording, page - 1, image);
+                } else {
+                    LOG.warning("Ignoring unexpected page " + page + " of file " + filePath);
+                }
+            };
+
+            for (int[] range : PDFToPPMRangeConverter.splitIntoRanges(nop, scheduler.getParallelism())) {
+                int firstPageNumber = firstPage + 1;
+                boolean visible = range[0] <= firstPageNumber
+                        && (range[1] == PDFToPPMRangeConverter.LAST_PAGE || firstPageNumber <= range[1]);
+                int priority = visible ? RenderScheduler.PRIORITY_VISIBLE : RenderScheduler.PRIORITY_BACKGROUND;
+
+                int last = range[1] == PDFToPPMRangeConverter.LAST_PAGE ? nop : range[1];
+
+                // the pages of a range are rendered one after another, so each takes the time since the previous one
+                AtomicLong lastPageAt = new AtomicLong();
+                PageRenderedListener rangeListener = (page, image) -> {
+                    long now = System.nanoTime();
+                    tracker.pageLoaded(page - 1, image, (now - lastPageAt.getAndSet(now)) / 1_000_000);
+                    pageListener.pageRendered(page, image);
+                };
+                PDFToPPMRangeConverter converter = new PDFToPPMRangeConverter(range[0], range[1], filePath, outputFormat,
+                        pageResolution, rangeListener, cancellation);
+
+                CompletableFuture<List<BufferedImage>> job = scheduler.submit(() -> {
+                    if (deferred.isRendererReplaced()) {
+                        // a previous rendering has been found in the meantime, so the pages are taken from it
+                        for (int p = range[0] - 1; p < last; p++) {
+                            rendered.get(p).complete(source.loadPage(p));
+                        }
+
+                        return Collections.<BufferedImage>emptyList();
+                    }
+
+                    lastPageAt.set(System.nanoTime());
+                    return converter.call();
+                }, priority);
+                cancellation.onCancel(() -> job.cancel(false));
+
+                job.whenComplete((images, err) -> {
+                    // pages the range did not deliver are rendered one by one, retrying and falling back if necessary
+                    for (int i = range[0] - 1; i < last; i++) {
+                        CompletableFuture<BufferedImage> pending = rendered.get(i);
+
+                        if (pending.isDone()) {
+                            continue;
+                        }
+
+                        if (cancellation.isCancelled()) {
+                            pending.completeExceptionally(err != null ? err : new CancellationException());
+                            continue;
+                        }
+
+                        int page = i;
+                        LOG.warning("Page " + (page + 1) + " of " + filePath + " was not delivered by its range, rendering it on its own");
+
+                        CompletableFuture<BufferedImage> retry = scheduler.submit(() -> source.loadPage(page), RenderScheduler.PRIORITY_VISIBLE);
+                        cancellation.onCancel(() -> retry.cancel(false));
+                        retry.whenComplete((image, retryErr) -> {
+                            if (retryErr != null) {
+                                pending.completeExceptionally(retryErr);
+                            } else {
+                                pending.complete(image);
+                            }
+                        });
+                    }
+                });
+            }
+        } else {
+            for (int i = 0; i < nop; i++) {
+                int page = i;
+                int priority = i == firstPage ? RenderScheduler.PRIORITY_VISIBLE : RenderScheduler.PRIORITY_BACKGROUND;
 
-        for (Future<BufferedImage> img : converters) {
-            originalImages.add(new ImageIcon(img.get()));
+                CompletableFuture<BufferedImage> job = scheduler.submit(() -> source.loadPage(page), priority);
+                cancellation.onCancel(() -> job.cancel(false));
+                cache.put(i, job);
+            }
         }
 
+        CompletableFuture<Void> allPages = CompletableFuture.allOf(cache.getWindowPages().stream().map(cache::prefetch)
+                .toArray(CompletableFuture[]::new));
+        allPages.whenComplete((v, err) -> LOG.info("Finished rendering " + (cache.isWindowed() ? "window of " : "")
+                + nop + " images of file " + filePath + " in " + (System.currentTimeMillis() - start) + " ms, " + scheduler
+                + (renderer instanceof PDFToPPMPageSource ? ", " + ((PDFToPPMPageSource) renderer).getReport() : "")
+                + (previous.isDone() && previous.join().source instanceof IncrementalPageSource ? ", " + previous.join().source : "")));
 
-        if (scaleAfter) {
-            initScaling();
-        }
+        return new PendingDeck(filePath, cache, previous.thenApply(p -> p.fingerprints), firstPage, cache.prefetch(firstPage),
+                allPages, start);
     }
 
     /**
-     * Calls {@link PDFPrerenderedImageWrapper#refreshImage()} on every wrapper.
+     * Replaces the displayed file by a newly rendered one, which may still be rendering.
+     * The pages of the previous file are released.
+     *
+     * @param deck       the {@link PendingDeck}
+     * @param scaleAfter whether the pages should be scaled and displayed
      */
-    private void refreshImage() {
-        imageWrapper.forEach(PDFPrerenderedImageWrapper::refreshImage);
+    private void installDeck(PendingDeck deck, boolean scaleAfter) {
+        replacePages(deck.cache, Collections.emptyMap());
+        pageFingerprints = deck.fingerprints;
+        mappedDeckFile = null;
+
+        if (scaleAfter) {
+            initScaling(deck.firstPage);
+
+            LOG.info("Time to first slide of file " + deck.filePath + ": " + (System.currentTimeMillis() - deck.start) + " ms");
+        }
     }
 
     /**
-     * Wrapper for starting the image-scaling-process
+     * Reads the page-count and the page-size within this JVM instead of starting an additional pdfinfo-process.
+     *
+     * @param filePath the path of the file
+     * @return the page-count and the {@link RenderResolution} fitted to the pages
+     * @throws IOException          if the file cannot be read
+     * @throws PDFException         if the file is not a valid PDF
+     * @throws PDFSecurityException if the file is encrypted
      */
-    private void initScaling() {
-        imageWrapper.forEach(PDFPrerenderedImageWrapper::prescaleImages);
+    private DocumentLayout readLayout(String filePath) throws IOException, PDFException, PDFSecurityException {
+        Document document = new Document();
 
-        imageWrapper.forEach(w -> w.getImagePanel().getRootPane().setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR)));
-//        progress.close();
+        try {
+            document.setFile(filePath);
 
+            PDimension pageDim = document.getPageDimension(0, 0f);
+            return new DocumentLayout(document.getNumberOfPages(), resolution.fittedTo(pageDim.getWidth(), pageDim.getHeight()));
+        } finally {
+            document.dispose();
+        }
+    }
 
-        this.gotoFirst();
+    /**
+     * Computes the key of a file in the {@link #renderCache}.
+     *
+     * @param filePath       the path of the file
+     * @param pageResolution the {@link RenderResolution} fitted to the pages
+     * @return the key or null, if there is no render-cache or the file cannot be hashed
+     */
+    private String computeCacheKey(String filePath, RenderResolution pageResolution) {
+        if (renderCache == null) {
+            return null;
+        }
 
-        this.setScreenVisibility(true);
+        try {
+            return RenderCache.computeKey(new File(filePath), getRendererVersion(), pageResolution);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not hash " + filePath + " for the render-cache", e);
+            return null;
+        }
     }
 
-    @Override
-    public boolean savePresentationToFile(File file) throws IOException {
-        FileOutputStream fos = new FileOutputStream(file);
-        GZIPOutputStream gos = new GZIPOutputStream(fos);
-        ObjectOutputStream oos = new ObjectOutputStream(gos);
+    /**
+     * Opens a cached rendering of a file.
+     *
+     * @param cacheKey  the key of the file
+     * @param pageCount the number of pages of the file
+     * @return the {@link DeckReader} or null, if the file is not cached or the cached rendering is unusable
+     */
+    private PageSource openCachedRendering(String cacheKey, int pageCount) {
+        File cachedFile = renderCache.lookup(cacheKey);
 
-        LOG.info("Starting saving pre-rendered file " + file.getAbsolutePath());
+        if (cachedFile == null) {
+            return null;
+        }
 
-        oos.writeObject(originalImages);
+        try {
+            DeckReader reader = new DeckReader(cachedFile);
 
-        LOG.info("Finished saving pre-rendered file " + file.getAbsolutePath());
+            if (reader.getPageCount() == pageCount) {
+                return reader;
+            }
 
-        oos.close();
-        gos.close();
-        fos.close();
+            reader.close();
+            LOG.warning("Ignoring cached rendering " + cachedFile + " with " + reader.getPageCount() + " instead of "
+                    + pageCount + " pages");
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Ignoring unreadable cached rendering " + cachedFile, e);
+        }
 
-        LOG.info("Finished writing currently loaded Presentation to " + file.getAbsolutePath());
-        return true;
+        return null;
     }
 
-    @Override
-    public void loadPresentationFromFile(File file) throws IOException, ClassNotFoundException {
-        FileInputStream fis = new FileInputStream(file);
-        GZIPInputStream gis = new GZIPInputStream(fis);
-        ObjectInputStream ois = new ObjectInputStream(gis);
+    /**
+     * Looks for a previous rendering of a file: a cached rendering of the same file, or else the unchanged pages of
+     * renderings of previous versions of it. Hashes the whole file, so this is run in the background.
+     *
+     * @param filePath       the path of the file
+     * @param pageCount      the number of pages of the file
+     * @param pageResolution the {@link RenderResolution} fitted to the pages
+     * @param renderer       the source rendering the pages
+     * @return the {@link PreviousRendering}, whose source is the renderer itself if nothing is found
+     */
+    private PreviousRendering findPreviousRendering(String filePath, int pageCount, RenderResolution pageResolution,
+                                                    PageSource renderer) {
+        RenderCache target = renderCache;
+        String cacheKey = computeCacheKey(filePath, pageResolution);
+        PageSource cached = cacheKey != null ? openCachedRendering(cacheKey, pageCount) : null;
+
+        if (cached != null) {
+            LOG.info("Decoding cached images of file " + filePath + " at " + pageResolution);
+
+            byte[][] fingerprints = ((DeckReader) cached).getFingerprints();
+            return new PreviousRendering(cached, fingerprints != null ? fingerprints
+                    : computeFingerprints(filePath, pageResolution), null);
+        }
 
-        LOG.info("Starting loading pre-rendered file " + file.getAbsolutePath());
+        byte[][] fingerprints = computeFingerprints(filePath, pageResolution);
+        PageSource source = reusePreviousRenderings(filePath, fingerprints, renderer);
 
-        this.originalImages = (ArrayList<ImageIcon>) ois.readObject();
+        if (source instanceof IncrementalPageSource) {
+            LOG.info("Rendering only changed images of file " + filePath + " at " + pageResolution);
+        }
 
-        LOG.info("Finished loading pre-rendered file " + file.getAbsolutePath());
+        RenderCache.Recording recording = null;
 
-        ois.close();
-        gis.close();
-        fis.close();
+        if (target != null && cacheKey != null) {
+            try {
+                recording = target.record(cacheKey, pageCount, deckCodec, deckCompressionLevel, fingerprints);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not add rendering " + cacheKey + " to the render-cache", e);
+            }
+        }
 
-        initScaling();
+        return new PreviousRendering(source, fingerprints, recording);
     }
 
+    /**
+     * Wraps a {@link PageSource}, so every page it loads is added to the render-cache as well. The entry is discarded
+     * if the source is closed before every page has been loaded, e.g. by a windowed cache.
+     *
+     * @param source    the source
+     * @param recording a future completed with the {@link RenderCache.Recording} of the entry or null, if the pages
+     *                  are not added to the render-cache
+     * @return the recorded source
+     */
+    private static PageSource recordPages(PageSource source, CompletableFuture<RenderCache.Recording> recording) {
+        return new PageSource() {
+            @Override
+            public int getPageCount() {
+                return source.getPageCount();
+            }
+
+            @Override
+            public BufferedImage loadPage(int page) throws IOException {
+                BufferedImage image = source.loadPage(page);
+
+                recordPage(recording, page, image);
+                return image;
+            }
+
+            @Override
+            public void close() {
+                source.close();
+                recording.thenAccept(r -> {
+                    if (r != null) {
+                        r.discard();
+                    }
+                });
+            }
+        };
+    }
 
     /**
-     * A wrapper containing pre-rendered images and panels for the different display-locations.
+     * Adds a rendered page to the render-cache in the background, as soon as the entry has been created.
+     *
+     * @param recording a future completed with the {@link RenderCache.Recording} of the entry or null
+     * @param page      the number of the page, starting at 0
+     * @param image     the page
      */
-    private class PDFPrerenderedImageWrapper {
-        /**
-         * The to the correct size prerendered images for each wrapper.
-         */
-        private ArrayList<ImageIcon> images;
+    private static void recordPage(CompletableFuture<RenderCache.Recording> recording, int page, BufferedImage image) {
+        recording.thenAccept(r -> {
+            if (r != null) {
+                RenderScheduler.getInstance().submit(() -> {
+                    r.addPage(page, image);
+                    return null;
+                }, RenderScheduler.PRIORITY_BACKGROUND);
+            }
+        });
+    }
 
-        /**
-         * The {@link JPanel} wrapping the displayed images.
-         */
-        private JPanel imagePanel;
+    /**
+     * Computes the fingerprints of the pages of a file, telling apart renderings by different renderers and at
+     * different resolutions as well.
+     *
+     * @param filePath       the path of the file
+     * @param pageResolution the {@link RenderResolution} fitted to the pages
+     * @return the fingerprints or null, if they cannot be computed
+     */
+    private byte[][] computeFingerprints(String filePath, RenderResolution pageResolution) {
+        long start = System.currentTimeMillis();
+
+        try {
+            byte[][] fingerprints = PageFingerprints.compute(filePath, getRendererVersion() + "\n" + pageResolution);
+            LOG.fine("Fingerprinted " + fingerprints.length + " pages of file " + filePath + " in "
+                    + (System.currentTimeMillis() - start) + " ms");
+
+            return fingerprints;
+        } catch (IOException | PDFException | PDFSecurityException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Could not fingerprint the pages of file " + filePath, e);
+            return null;
+        }
+    }
 
-        /**
-         * The {@link JLabel} containing the currently displayed image.
-         */
-        private JLabel imageLabel;
+    /**
+     * Looks for pages of a file in previous renderings: the pre-rendered presentations next to the file, e.g. of a
+     * previous version, and the entries of the {@link #renderCache}.
+     *
+     * @param filePath     the path of the file
+     * @param fingerprints the fingerprints of its pages or null
+     * @param renderer     the source rendering the pages
+     * @return an {@link IncrementalPageSource} rendering only the pages not found, or the renderer, if no page is found
+     */
+    private PageSource reusePreviousRenderings(String filePath, byte[][] fingerprints, PageSource renderer) {
+        if (fingerprints == null) {
+            return renderer;
+        }
 
-        /**
-         * The Constructor.
-         */
-        PDFPrerenderedImageWrapper() {
-            imageLabel = new JLabel();
-            imageLabel.setBackground(Color.BLACK);
+        List<File> candidates = new ArrayList<>();
 
-            imagePanel = new JPanel();
-            imagePanel.add(imageLabel);
-            imagePanel.setBackground(Color.BLACK);
+        File[] siblings = new File(filePath).getAbsoluteFile().getParentFile().listFiles((dir, name) -> name.endsWith(".pktool"));
+        if (siblings != null) {
+            candidates.addAll(Arrays.asList(siblings));
+        }
 
-            images = new ArrayList<>();
+        if (renderCache != null) {
+            candidates.addAll(renderCache.getEntries());
         }
 
-        /**
-         * Re-renders the displayed versions of the images to the currently used size.
-         */
-        private void prescaleImages() {
-            LOG.info("Begin scaling images of panel " + imagePanel);
+        IncrementalPageSource incremental = IncrementalPageSource.create(fingerprints,
+                candidates.subList(0, Math.min(candidates.size(), MAX_PREVIOUS_RENDERINGS)), renderer);
+
+        return incremental != null ? incremental : renderer;
+    }
 
-            images = originalImages.parallelStream().map(imageIcon -> {
-                Image i = imageIcon.getImage();
+    /**
+     * Returns the name and version of the renderer, telling apart cached renderings of different renderers.
+     *
+     * @return the name and version
+     */
+    protected String getRendererVersion() {
+        // pages pdftoppm fails at are rendered by IcePDF, so a rendering depends on both
+        return "pdftoppm " + PDFToPPMPageSource.getVersion() + ", icepdf " + Document.getLibraryVersion();
+    }
 
-                Dimension panelDim = imageLabel.getParent().getSize();
-                Dimension imageDim = new Dimension(i.getWidth(null), i.getHeight(null));
+    /**
+     * Sets the cache rendered files are looked up in while rendering and added to page by page.
+     *
+     * @param renderCache the {@link RenderCache} or null, if files should always be rendered
+     */
+    public void setRenderCache(RenderCache renderCache) {
+        this.renderCache = renderCache;
+    }
 
-                if (panelDim.width <= 0 || panelDim.height <= 0) {
-                    return imageIcon;
-                }
+    /**
+     * Renders a file straight into a pre-rendered presentation, without displaying it. Every page is compressed and
+     * written as soon as it is rendered and released afterwards, so only a few pages are held at once regardless of
+     * the size of the file. In {@link RenderMode#BATCHED} the pages are rendered in ranges of the size of the
+     * writer's look-ahead, each by a single process. The target-file is only replaced once it is complete.
+     *
+     * @param filePath the path of the PDF-file
+     * @param file     the pre-rendered presentation to be written
+     * @throws IOException          if a page cannot be rendered or the presentation cannot be written
+     * @throws PDFException         if the file is not a valid PDF
+     * @throws PDFSecurityException if the file is encrypted
+     */
+    public void prerenderToFile(String filePath, File file) throws IOException, PDFException, PDFSecurityException {
+        long start = System.currentTimeMillis();
+        DocumentLayout layout = readLayout(filePath);
 
+        byte[][] fingerprints = computeFingerprints(filePath, layout.resolution);
 
-                double panelRatio = panelDim.getHeight() / panelDim.getWidth();
-                double imageRatio = imageDim.getHeight() / imageDim.getWidth();
+        LoadProgressTracker tracker = new LoadProgressTracker(progressListener);
+        PageSource renderer = reusePreviousRenderings(filePath, fingerprints,
+                createPageSource(filePath, layout.pageCount, layout.resolution, RenderCancellation.NONE));
+        PageSource source = tracker.track(renderer);
+        tracker.expect(IntStream.range(0, layout.pageCount).boxed().collect(Collectors.toList()));
 
-                Image imageScaled;
+        RenderScheduler scheduler = RenderScheduler.getInstance();
 
-                if (panelRatio < imageRatio) {
-                    imageScaled = i.getScaledInstance((int) (panelDim.height / imageRatio), panelDim.height, Image.SCALE_SMOOTH);
-                } else {
-                    imageScaled = i.getScaledInstance(panelDim.width, (int) (panelDim.width * imageRatio), Image.SCALE_SMOOTH);
-                }
+        LOG.info("Begin streaming pages of file " + filePath + " at " + layout.resolution + " to " + file.getAbsolutePath());
 
-                return new ImageIcon(imageScaled);
-            }).collect(Collectors.toCollection(ArrayList::new));
+        IntFunction<CompletableFuture<BufferedImage>> pages;
 
-            LOG.info("Finished scaling images of panel " + imagePanel);
+        if (renderMode == RenderMode.BATCHED && supportsBatchedRendering() && renderer instanceof PDFToPPMPageSource) {
+            pages = renderRangesOnDemand(filePath, layout, source, tracker);
+        } else {
+            pages = page -> scheduler.submit(() -> source.loadPage(page), RenderScheduler.PRIORITY_BACKGROUND);
         }
 
-        public JPanel getImagePanel() {
-            return imagePanel;
+        try (DeckWriter writer = createDeckWriter(file, layout.pageCount, fingerprints)) {
+            writer.writePages(pages);
+        } finally {
+            source.close();
         }
 
-        public JLabel getImageLabel() {
-            return imageLabel;
-        }
+        LOG.info("Finished streaming " + layout.pageCount + " pages of file " + filePath + " in "
+                + (System.currentTimeMillis() - start) + " ms" + (renderer instanceof IncrementalPageSource ? ", " + renderer : ""));
+    }
 
-        /**
-         * Refreshes the currently used image on the imageLabel, usually used in conjunction with a page change.
-         */
-        public void refreshImage() {
-            imageLabel.setIcon(images.get(currImageNumber));
+    /**
+     * Renders the pages of a file in ranges of {@link DeckWriter#getPagesAhead()} pages, each by a single
+     * pdftoppm-process. A range is only started once its first page is requested, so no more than two ranges are
+     * held ahead of the writer. Pages a range does not deliver are rendered one by one by the source.
+     *
+     * @param filePath the path of the file
+     * @param layout   the page-count and resolution of the file
+     * @param source   the source rendering undelivered pages, falling back if necessary
+     * @param tracker  the {@link LoadProgressTracker} of the rendering
+     * @return returns a future completed with a page, given its number, to be requested in ascending order
+     */
+    private IntFunction<CompletableFuture<BufferedImage>> renderRangesOnDemand(String filePath, DocumentLayout layout,
+                                                                              PageSource source, LoadProgressTracker tracker) {
+        RenderScheduler scheduler = RenderScheduler.getInstance();
+        int rangeSize = DeckWriter.getPagesAhead();
+
+        // the pages of the started ranges, removed once they have been requested
+        Map<Integer, CompletableFuture<BufferedImage>> rendered = new ConcurrentHashMap<>();
+
+        return page -> {
+            if (!rendered.containsKey(page)) {
+                int first = page + 1;
+                int last = Math.min(page + rangeSize, layout.pageCount);
+                List<CompletableFuture<BufferedImage>> range = new ArrayList<>();
+
+                for (int p = page; p < last; p++) {
+                    range.add(new CompletableFuture<>());
+                    rendered.put(p, range.get(p - page));
+                }
+
+                // the pages of a range are rendered one after another, so each takes the time since the previous one
+                AtomicLong lastPageAt = new AtomicLong();
+                PDFToPPMRangeConverter converter = new PDFToPPMRangeConverter(first, last, filePath, outputFormat,
+                        layout.resolution, (number, image) -> {
+                    if (number < first || number > last) {
+                        LOG.warning("Ignoring unexpected page " + number + " of file " + filePath);
+                        return;
+                    }
+
+                    long now = System.nanoTime();
+                    tracker.pageLoaded(number - 1, image, (now - lastPageAt.getAndSet(now)) / 1_000_000);
+                    range.get(number - first).complete(image);
+                }, RenderCancellation.NONE);
+
+                scheduler.submit(() -> {
+                    lastPageAt.set(System.nanoTime());
+                    return converter.call();
+                }, RenderScheduler.PRIORITY_BACKGROUND).whenComplete((images, err) -> {
+                    for (int p = first - 1; p < last; p++) {
+                        CompletableFuture<BufferedImage> pending = range.get(p - first + 1);
+
+                        if (pending.isDone()) {
+                            continue;
+                        }
+
+                        int missing = p;
+                        LOG.warning("Page " + (missing + 1) + " of " + filePath + " was not delivered by its range, rendering it on its own");
+
+                        scheduler.submit(() -> source.loadPage(missing), RenderScheduler.PRIORITY_BACKGROUND).whenComplete((image, retryErr) -> {
+                            if (retryErr != null) {
+                                pending.completeExceptionally(retryErr);
+                            } else {
+                                pending.complete(image);
+                            }
+                        });
+                    }
+                });
+            }
+
+            return rendered.remove(page);
+        };
+    }
+
+    /**
+     * Creates the source the pages of a newly loaded file are rendered by.
+     *
+     * @param filePath       the File-path
+     * @param pageCount      the number of pages of the file
+     * @param pageResolution the {@link RenderResolution} fitted to the pages of the file
+     * @param cancellation   the {@link RenderCancellation} of the rendering
+     * @return the {@link PageSource}
+     */
+    protected PageSource createPageSource(String filePath, int pageCount, RenderResolution pageResolution,
+                                          RenderCancellation cancellation) {
+        // pages pdftoppm keeps failing at are rendered within this JVM instead
+        return new PDFToPPMPageSource(filePath, pageCount, outputFormat, pageResolution, cancellation,
+                new IcePDFPageSource(filePath, pageCount, pageResolution));
+    }
+
+    /**
+     * Returns whether ranges of pages can be rendered by single processes, see {@link RenderMode#BATCHED}.
+     *
+     * @return whether batched rendering is supported
+     */
+    protected boolean supportsBatchedRendering() {
+        return true;
+    }
+
+    /**
+     * Sets the listener notified about the progress of loads which are not given a listener of their own, e.g. by
+     * {@link #loadNewFile(String)}.
+     *
+     * @param progressListener the {@link LoadProgressListener} or null
+     */
+    public void setProgressListener(LoadProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Sets whether the first page of a new file is displayed as soon as it is rendered, instead of waiting for
+     * all pages.
+     *
+     * @param progressiveLoading whether to load progressively
+     */
+    public void setProgressiveLoading(boolean progressiveLoading) {
+        this.progressiveLoading = progressiveLoading;
+    }
+
+    public boolean isProgressiveLoading() {
+        return progressiveLoading;
+    }
+
+    /**
+     * Configures the cache of newly loaded files. A windowed cache only keeps the pages within the window around the
+     * current page as well as the first and the last page. All other pages are evicted as soon as they exceed the
+     * memory-budget and are rendered again on demand.
+     *
+     * @param window       the number of pages kept before and after the current page or {@link PageCache#UNBOUNDED}
+     * @param memoryBudget the maximum number of bytes pages outside of the window may take
+     */
+    public void setPageCacheWindow(int window, long memoryBudget) {
+        this.pageCacheWindow = window;
+        this.pageCacheMemoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets how the pages are compressed when saving the presentation.
+     *
+     * @param codec the {@link PageCodec}
+     * @param level the compression-level passed to the codec
+     */
+    public void setDeckCodec(PageCodec codec, int level) {
+        this.deckCodec = codec;
+        this.deckCompressionLevel = level;
+    }
+
+    /**
+     * Sets whether pages differing from their previous page in only a few tiles, like the steps of build-up slides,
+     * are saved as deltas to the previous page.
+     *
+     * @param deltaEncoding whether to delta-encode pages
+     */
+    public void setDeckDeltaEncoding(boolean deltaEncoding) {
+        this.deckDeltaEncoding = deltaEncoding;
+    }
+
+    /**
+     * Sets the display-profiles the pages are additionally saved for, e.g. 1920x1080 for a Full HD projector.
+     * Every page is scaled to fit into each profile when saving, so panels of that size display the pages of a loaded
+     * presentation without scaling them.
+     *
+     * @param profiles the boxes of the display-profiles, possibly empty
+     */
+    public void setDeckProfiles(List<Dimension> profiles) {
+        this.deckProfiles = new ArrayList<>(profiles);
+    }
+
+    /**
+     * Creates a writer for a pre-rendered presentation using the selected codec, delta-encoding and display-profiles.
+     *
+     * @param file         the file to be written
+     * @param pageCount    the number of pages
+     * @param fingerprints the fingerprints of the pages or null
+     * @return the {@link DeckWriter}
+     * @throws IOException if the file cannot be created
+     */
+    private DeckWriter createDeckWriter(File file, int pageCount, byte[][] fingerprints) throws IOException {
+        ImageScaler.Algorithm algorithm = scalingAlgorithm;
+
+        DeckWriter writer = new DeckWriter(file, pageCount, deckCodec, deckCompressionLevel, fingerprints, deckProfiles,
+                (image, box) -> {
+                    Dimension scaledDim = ImageScaler.fitInto(image.getWidth(), image.getHeight(), box);
+                    return ImageScaler.scale(image, scaledDim.width, scaledDim.height, algorithm);
+                });
+        writer.setDeltaEncoding(deckDeltaEncoding);
+
+        return writer;
+    }
+
+    /**
+     * Sets the algorithm used for scaling the pages to the size of the panels, taking effect at the next scaling.
+     *
+     * @param scalingAlgorithm the {@link ImageScaler.Algorithm}
+     */
+    public void setScalingAlgorithm(ImageScaler.Algorithm scalingAlgorithm) {
+        this.scalingAlgorithm = scalingAlgorithm;
+    }
+
+    public ImageScaler.Algorithm getScalingAlgorithm() {
+        return scalingAlgorithm;
+    }
+
+    /**
+     * Sets how the scaled pages are prepared for the screens of the panels, taking effect at the next scaling.
+     *
+     * @param acceleration the {@link AcceleratedSlideIcon.Acceleration}
+     */
+    public void setAcceleration(AcceleratedSlideIcon.Acceleration acceleration) {
+        this.acceleration = acceleration;
+    }
+
+    public AcceleratedSlideIcon.Acceleration getAcceleration() {
+        return acceleration;
+    }
+
+    /**
+     * Returns the latencies between page-changes and the first paint of the new page.
+     *
+     * @return the {@link FlipStatistics}
+     */
+    public FlipStatistics getFlipStatistics() {
+        return flipStatistics;
+    }
+
+    /**
+     * Returns the cache of the currently loaded file, e.g. for reading its hit-, miss- and eviction-counts.
+     *
+     * @return the {@link PageCache}
+     */
+    public PageCache getPageCache() {
+        return pages;
+    }
+
+    /**
+     * Sets how the pdftoppm-processes are used when rendering a new file.
+     *
+     * @param renderMode the {@link RenderMode}
+     */
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Sets the format pdftoppm writes the rendered pages in.
+     *
+     * @param outputFormat the {@link OutputFormat}
+     */
+    public void setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Sets the resolution the pages of newly loaded files are rendered at.
+     *
+     * @param resolution the {@link RenderResolution}
+     */
+    public void setResolution(RenderResolution resolution) {
+        this.resolution = resolution;
+    }
+
+    public RenderResolution getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Calls {@link PDFPrerenderedImageWrapper#refreshImage()} on every wrapper.
+     */
+    private void refreshImage() {
+        // only the pages of the resolutions actually displayed are materialized
+        List<PageCache> displayed = imageWrapper.stream().map(PDFPrerenderedImageWrapper::getPages).distinct()
+                .collect(Collectors.toList());
+
+        if (displayed.isEmpty()) {
+            displayed.add(pages);
+        }
+
+        for (PageCache deck : displayed) {
+            deck.get(currImageNumber);
+            deck.setCurrentPage(currImageNumber);
+        }
+
+        if (displayed.stream().anyMatch(PageCache::isWindowed)) {
+            imageWrapper.forEach(PDFPrerenderedImageWrapper::prefetchImages);
+        }
+
+        imageWrapper.forEach(PDFPrerenderedImageWrapper::refreshImage);
+
+        LOG.fine(displayed + ", " + ScaledImageCache.getInstance() + ", " + flipStatistics);
+    }
+
+    /**
+     * Returns the pages best suited for a panel: the pages of the display-profile matching the panel exactly, which
+     * are displayed without scaling, otherwise the smallest display-profile covering the panel, otherwise the pages of
+     * the full resolution.
+     *
+     * @param box the size of the panel
+     * @return the {@link PageCache}
+     */
+    private PageCache selectPages(Dimension box) {
+        PageCache selected = pages;
+        Dimension selectedProfile = null;
+
+        for (Map.Entry<Dimension, PageCache> profile : profilePages.entrySet()) {
+            Dimension profileBox = profile.getKey();
+
+            if (profileBox.equals(box)) {
+                return profile.getValue();
+            }
+
+            if (profileBox.width >= box.width && profileBox.height >= box.height && (selectedProfile == null
+                    || (long) profileBox.width * profileBox.height < (long) selectedProfile.width * selectedProfile.height)) {
+                selected = profile.getValue();
+                selectedProfile = profileBox;
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Replaces the displayed pages, releasing the previous ones. The scaled versions of pages evicted from the
+     * new caches are dropped by the panels displaying them.
+     *
+     * @param cache    the pages of the full resolution
+     * @param profiles the pages of the display-profiles by their boxes
+     */
+    private void replacePages(PageCache cache, Map<Dimension, PageCache> profiles) {
+        pages.close();
+        profilePages.values().forEach(PageCache::close);
+
+        cache.addEvictionListener(page -> imageWrapper.forEach(w -> w.evict(cache, page)));
+        profiles.values().forEach(profile -> profile.addEvictionListener(page -> imageWrapper.forEach(w -> w.evict(profile, page))));
+
+        pages = cache;
+        profilePages = profiles;
+    }
+
+    /**
+     * Wrapper for starting the image-scaling-process. Pages which are not rendered yet are scaled as soon as they
+     * are ready, only displaying the first page waits for it.
+     *
+     * @param firstPage the number of the page to be displayed
+     */
+    private void initScaling(int firstPage) {
+        imageWrapper.forEach(PDFPrerenderedImageWrapper::prescaleImages);
+
+        currImageNumber = firstPage;
+        refreshImage();
+
+        imageWrapper.forEach(w -> w.getImagePanel().getRootPane().setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR)));
+
+        this.setScreenVisibility(true);
+    }
+
+    /**
+     * Writes the presentation in the random-access {@link DeckFormat}. Pages are compressed in parallel using the
+     * selected {@link PageCodec} and written in page-order, only a few pages ahead being held at once.
+     * <p>
+     * Saving over the file the displayed pages are mapped from writes a staging file next to it first. The mapped
+     * file is only closed and replaced once all pages are written, then it is loaded again at the current page.
+     *
+     * @param file The file.
+     * @return true
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public boolean savePresentationToFile(File file) throws IOException {
+        File mapped = mappedDeckFile;
+
+        if (mapped != null && file.exists() && Files.isSameFile(mapped.toPath(), file.toPath())) {
+            return replaceMappedPresentation(file);
+        }
+
+        writePresentation(file);
+        return true;
+    }
+
+    /**
+     * Saves the presentation over the file the displayed pages are mapped from.
+     *
+     * @param file The mapped file.
+     * @return true
+     * @throws IOException If the file cannot be written.
+     */
+    private boolean replaceMappedPresentation(File file) throws IOException {
+        File staging = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+
+        try {
+            writePresentation(staging);
+        } catch (IOException | RuntimeException e) {
+            if (!staging.delete()) {
+                LOG.warning("Could not delete " + staging);
+            }
+            throw e;
+        }
+
+        int currentPage = currImageNumber;
+
+        // unmaps the file, so it can be replaced on Windows as well
+        replacePages(new PageCache(null, 0), Collections.emptyMap());
+
+        try {
+            DeckWriter.replaceFile(staging, file);
+        } finally {
+            try {
+                loadPresentationFromFile(file, currentPage);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Could not load " + file + " again", e);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the displayed pages to a file.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writePresentation(File file) throws IOException {
+        LOG.info("Starting saving pre-rendered file " + file.getAbsolutePath());
+
+        PageCache deck = pages;
+
+        byte[][] fingerprints = pageFingerprints.join();
+
+        try (DeckWriter writer = createDeckWriter(file, deck.getPageCount(),
+                fingerprints != null && fingerprints.length == deck.getPageCount() ? fingerprints : null)) {
+            writer.writePages(deck::prefetch);
+        }
+
+        LOG.info("Finished writing currently loaded Presentation to " + file.getAbsolutePath());
+    }
+
+    /**
+     * Writes the presentation in the legacy format, a GZIP-compressed serialized list of {@link ImageIcon}s.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveLegacyPresentationToFile(File file) throws IOException {
+        FileOutputStream fos = new FileOutputStream(file);
+        GZIPOutputStream gos = new GZIPOutputStream(fos);
+        ObjectOutputStream oos = new ObjectOutputStream(gos);
+
+        LOG.info("Starting saving legacy pre-rendered file " + file.getAbsolutePath());
+
+        ArrayList<ImageIcon> images = new ArrayList<>();
+
+        for (int p = 0; p < pages.getPageCount(); p++) {
+            images.add(new ImageIcon(pages.prefetch(p).join()));
+        }
+
+        oos.writeObject(images);
+
+        oos.close();
+        gos.close();
+        fos.close();
+
+        LOG.info("Finished writing currently loaded Presentation to " + file.getAbsolutePath());
+    }
+
+    /**
+     * Loads a presentation written by {@link #savePresentationToFile(File)}. Files in the {@link DeckFormat} are
+     * memory-mapped and decoded page by page when first needed, so opening them does not depend on the number of
+     * pages and a windowed cache can evict pages and re-read them from the mapping. Legacy files are read completely.
+     *
+     * @param file The file.
+     * @throws IOException            If the file cannot be read.
+     * @throws ClassNotFoundException If a legacy file contains unknown classes.
+     */
+    @Override
+    public void loadPresentationFromFile(File file) throws IOException, ClassNotFoundException {
+        loadPresentationFromFile(file, 0);
+    }
+
+    /**
+     * Loads a presentation written by {@link #savePresentationToFile(File)} and displays one of its pages.
+     *
+     * @param file      The file.
+     * @param firstPage The number of the page to be displayed, the last one if the file has fewer pages.
+     * @throws IOException            If the file cannot be read.
+     * @throws ClassNotFoundException If a legacy file contains unknown classes.
+     */
+    private void loadPresentationFromFile(File file, int firstPage) throws IOException, ClassNotFoundException {
+        LOG.info("Starting loading pre-rendered file " + file.getAbsolutePath());
+
+        long start = System.currentTimeMillis();
+        PageCache cache;
+        Map<Dimension, PageCache> profiles = new LinkedHashMap<>();
+        byte[][] fingerprints = null;
+        File mapped = null;
+
+        if (DeckFormat.isDeckFile(file)) {
+            DeckReader reader = new DeckReader(file);
+            cache = new PageCache(reader, reader.getPageCount(), pageCacheWindow, pageCacheMemoryBudget);
+            fingerprints = reader.getFingerprints();
+            mapped = file;
+
+            List<Dimension> boxes = reader.getProfiles();
+            for (int profile = 0; profile < boxes.size(); profile++) {
+                profiles.put(boxes.get(profile), new PageCache(reader.getProfileSource(profile), reader.getPageCount(),
+                        pageCacheWindow, pageCacheMemoryBudget));
+            }
+
+            LOG.info("Mapped " + reader.getPageCount() + " pages of " + file.getName() + (boxes.isEmpty() ? "" : " with display-profiles "
+                    + boxes.stream().map(box -> box.width + "x" + box.height).collect(Collectors.joining(", "))) + " in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } else {
+            cache = loadLegacyPresentation(file);
+        }
+
+        replacePages(cache, profiles);
+        this.pageFingerprints = CompletableFuture.completedFuture(fingerprints);
+        this.mappedDeckFile = mapped;
+
+        LOG.info("Finished loading pre-rendered file " + file.getAbsolutePath());
+
+        initScaling(Math.max(0, Math.min(firstPage, cache.getPageCount() - 1)));
+    }
+
+    /**
+     * Reads a file in the legacy format completely.
+     *
+     * @param file The file.
+     * @return A cache holding all pages.
+     * @throws IOException            If the file cannot be read.
+     * @throws ClassNotFoundException If the file contains unknown classes.
+     */
+    private static PageCache loadLegacyPresentation(File file) throws IOException, ClassNotFoundException {
+        FileInputStream fis = new FileInputStream(file);
+        GZIPInputStream gis = new GZIPInputStream(fis);
+        ObjectInputStream ois = new ObjectInputStream(gis);
+
+        ArrayList<ImageIcon> images = (ArrayList<ImageIcon>) ois.readObject();
+
+        // the whole file is on the heap anyways, so there is nothing to re-materialize evicted pages from
+        PageCache cache = new PageCache(null, images.size());
+        for (int p = 0; p < images.size(); p++) {
+            cache.put(p, CompletableFuture.completedFuture(toBufferedImage(images.get(p))));
+        }
+
+        ois.close();
+        gis.close();
+        fis.close();
+
+        return cache;
+    }
+
+    /**
+     * Converts a deserialized {@link ImageIcon} into a {@link BufferedImage}.
+     *
+     * @param icon the icon
+     * @return the image
+     */
+    private static BufferedImage toBufferedImage(ImageIcon icon) {
+        if (icon.getImage() instanceof BufferedImage) {
+            return (BufferedImage) icon.getImage();
+        }
+
+        BufferedImage image = new BufferedImage(icon.getIconWidth(), icon.getIconHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.drawImage(icon.getImage(), 0, 0, null);
+        g.dispose();
+
+        return image;
+    }
+
+    /**
+     * The page-count of a file and the resolution its pages are rendered at.
+     */
+    private static class DocumentLayout {
+        /**
+         * The number of pages.
+         */
+        private final int pageCount;
+
+        /**
+         * The {@link RenderResolution} fitted to the pages.
+         */
+        private final RenderResolution resolution;
+
+        /**
+         * The Constructor.
+         *
+         * @param pageCount  the number of pages
+         * @param resolution the {@link RenderResolution} fitted to the pages
+         */
+        private DocumentLayout(int pageCount, RenderResolution resolution) {
+            this.pageCount = pageCount;
+            this.resolution = resolution;
+        }
+    }
+
+    /**
+     * A file being rendered, which is not displayed yet.
+     */
+    private static class PendingDeck {
+        /**
+         * The path of the file.
+         */
+        private final String filePath;
+
+        /**
+         * The cache the pages are rendered into.
+         */
+        private final PageCache cache;
+
+        /**
+         * A future completed with the fingerprints of the pages or null.
+         */
+        private final CompletableFuture<byte[][]> fingerprints;
+
+        /**
+         * The number of the page shown first.
+         */
+        private final int firstPage;
+
+        /**
+         * Completed as soon as the page shown first is rendered.
+         */
+        private final CompletableFuture<BufferedImage> firstPageRendered;
+
+        /**
+         * Completed as soon as all pages kept by the cache are rendered.
+         */
+        private final CompletableFuture<Void> allPages;
+
+        /**
+         * The {@link System#currentTimeMillis()} the rendering was started at.
+         */
+        private final long start;
+
+        /**
+         * The Constructor.
+         *
+         * @param filePath          the path of the file
+         * @param cache             the cache the pages are rendered into
+         * @param fingerprints      a future completed with the fingerprints of the pages or null
+         * @param firstPage         the number of the page shown first
+         * @param firstPageRendered completed as soon as the page shown first is rendered
+         * @param allPages          completed as soon as all pages kept by the cache are rendered
+         * @param start             the time the rendering was started at
+         */
+        PendingDeck(String filePath, PageCache cache, CompletableFuture<byte[][]> fingerprints, int firstPage,
+                    CompletableFuture<BufferedImage> firstPageRendered, CompletableFuture<Void> allPages, long start) {
+            this.filePath = filePath;
+            this.cache = cache;
+            this.fingerprints = fingerprints;
+            this.firstPage = firstPage;
+            this.firstPageRendered = firstPageRendered;
+            this.allPages = allPages;
+            this.start = start;
+        }
+    }
+
+    /**
+     * A previous rendering of a file found by {@link #findPreviousRendering}.
+     */
+    private static class PreviousRendering {
+        /**
+         * The source the pages are loaded from: a cached rendering, an {@link IncrementalPageSource} or the renderer.
+         */
+        private final PageSource source;
+
+        /**
+         * The fingerprints of the pages or null.
+         */
+        private final byte[][] fingerprints;
+
+        /**
+         * The {@link RenderCache.Recording} the rendered pages are added to the render-cache by or null.
+         */
+        private final RenderCache.Recording recording;
+
+        /**
+         * The Constructor.
+         *
+         * @param source       the source the pages are loaded from
+         * @param fingerprints the fingerprints of the pages or null
+         * @param recording    the {@link RenderCache.Recording} or null
+         */
+        PreviousRendering(PageSource source, byte[][] fingerprints, RenderCache.Recording recording) {
+            this.source = source;
+            this.fingerprints = fingerprints;
+            this.recording = recording;
+        }
+    }
+
+    /**
+     * A wrapper containing pre-rendered images and panels for the different display-locations.
+     */
+    private class PDFPrerenderedImageWrapper {
+        /**
+         * The to the correct size prerendered images for each wrapper by their page-number, held in the shared
+         * {@link ScaledImageCache}. Every page maps to a single handle, so recording and evicting a page are atomic
+         * even though pages are evicted by the threads materializing them.
+         */
+        private volatile Map<Integer, ScaledImageCache.Handle> images;
+
+        /**
+         * The size of the panel the images are scaled to.
+         */
+        private volatile Dimension panelDim = new Dimension();
+
+        /**
+         * The {@link GraphicsConfiguration} of the screen the images are prepared for.
+         */
+        private volatile GraphicsConfiguration graphicsConfiguration;
+
+        /**
+         * Delays rescaling until the size of the panel has settled.
+         */
+        private final Timer rescaleTimer;
+
+        /**
+         * The rescaling running in the background or null.
+         */
+        private Rescaling pendingRescaling;
+
+        /**
+         * The {@link JPanel} wrapping the displayed images.
+         */
+        private JPanel imagePanel;
+
+        /**
+         * The {@link JLabel} containing the currently displayed image.
+         */
+        private JLabel imageLabel;
+
+        /**
+         * The Constructor.
+         */
+        PDFPrerenderedImageWrapper() {
+            imageLabel = new JLabel();
+            imageLabel.setBackground(Color.BLACK);
+
+            imagePanel = new JPanel();
+            imagePanel.add(imageLabel);
+            imagePanel.setBackground(Color.BLACK);
+
+            images = new ConcurrentHashMap<>();
+
+            rescaleTimer = new Timer(RESCALE_DELAY, e -> rescaleInBackground());
+            rescaleTimer.setRepeats(false);
+
+            imagePanel.addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    scheduleRescale();
+                }
+            });
+
+            // moving the window to another screen changes the graphics configuration of the panel
+            imagePanel.addHierarchyBoundsListener(new HierarchyBoundsAdapter() {
+                @Override
+                public void ancestorMoved(HierarchyEvent e) {
+                    if (imageLabel.getGraphicsConfiguration() != graphicsConfiguration) {
+                        scheduleRescale();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Re-renders the displayed versions of the images to the currently used size.
+         */
+        private void prescaleImages() {
+            LOG.info("Begin scaling images of panel " + imagePanel);
+
+            cancelRescaling();
+
+            panelDim = imageLabel.getParent().getSize();
+            graphicsConfiguration = imageLabel.getGraphicsConfiguration();
+
+            images.keySet().forEach(this::evict);
+
+            prefetchImages();
+
+            CompletableFuture.allOf(images.values().stream().map(ScaledImageCache.Handle::getImage).toArray(CompletableFuture<?>[]::new))
+                    .whenComplete((v, err) -> LOG.info("Finished scaling images of panel " + imagePanel));
+        }
+
+        /**
+         * Starts scaling the pages which are kept by the cache at the current page, unless they are scaled already.
+         */
+        private void prefetchImages() {
+            getPages().getWindowPages().forEach(this::getScaledImage);
+        }
+
+        /**
+         * Returns the pages displayed by this panel, see {@link #selectPages(Dimension)}.
+         *
+         * @return the {@link PageCache}
+         */
+        private PageCache getPages() {
+            return selectPages(panelDim);
+        }
+
+        /**
+         * Returns the displayed version of a page, scaling it as soon as it is materialized if necessary.
+         * Panels of the same size share their scaled images through the {@link ScaledImageCache}.
+         *
+         * @param page the page-number
+         * @return a future completed with the scaled image
+         */
+        private CompletableFuture<AcceleratedSlideIcon> getScaledImage(int page) {
+            ScaledImageCache.Handle handle = images.get(page);
+
+            if (handle == null || handle.getImage().isCompletedExceptionally()) {
+                return acquireScaledImage(page, panelDim, graphicsConfiguration, images);
+            }
+
+            return handle.getImage();
+        }
+
+        /**
+         * Acquires the scaled version of a page from the shared {@link ScaledImageCache} and records it, releasing
+         * the version recorded before.
+         *
+         * @param page   the page-number
+         * @param box    the size of the panel
+         * @param gc     the {@link GraphicsConfiguration} of the panel's screen
+         * @param images the map the handle of the scaled image is recorded in
+         * @return a future completed with the scaled image
+         */
+        private CompletableFuture<AcceleratedSlideIcon> acquireScaledImage(int page, Dimension box, GraphicsConfiguration gc,
+                                                                          Map<Integer, ScaledImageCache.Handle> images) {
+            ImageScaler.Algorithm algorithm = scalingAlgorithm;
+            AcceleratedSlideIcon.Acceleration acc = acceleration;
+            PageCache deck = selectPages(box);
+            ScaledImageCache.Key key = new ScaledImageCache.Key(deck, page, box, algorithm);
+
+            ScaledImageCache.Handle handle = ScaledImageCache.getInstance().acquire(key, gc, acc,
+                    () -> deck.prefetch(page).thenApplyAsync(i -> scale(i, box, algorithm)),
+                    scaled -> AcceleratedSlideIcon.create(scaled, gc, acc, flipStatistics));
+            ScaledImageCache.Handle replaced = images.put(page, handle);
+
+            if (replaced != null) {
+                ScaledImageCache.getInstance().release(replaced);
+            }
+
+            return handle.getImage();
+        }
+
+        /**
+         * Restarts the delay after which the pages are rescaled to the current size of the panel.
+         * May be called from any thread.
+         */
+        private void scheduleRescale() {
+            SwingUtilities.invokeLater(rescaleTimer::restart);
+        }
+
+        /**
+         * Starts rescaling the pages kept by the cache to the current size and screen of the panel in the background.
+         * The displayed images are kept until all of them are rescaled and then swapped at once,
+         * so a running presentation is not interrupted. A rescaling still running is cancelled.
+         */
+        private void rescaleInBackground() {
+            if (!isDocumentSelected() || imageLabel.getParent() == null) {
+                return;
+            }
+
+            Dimension box = imageLabel.getParent().getSize();
+            GraphicsConfiguration gc = imageLabel.getGraphicsConfiguration();
+
+            if (box.equals(panelDim) && gc == graphicsConfiguration) {
+                cancelRescaling();
+                return;
+            }
+
+            cancelRescaling();
+
+            LOG.info("Begin rescaling images of panel " + imagePanel + " to " + box.width + "x" + box.height);
+
+            Rescaling rescaling = new Rescaling(box, gc);
+            pendingRescaling = rescaling;
+
+            selectPages(box).getWindowPages().forEach(page -> acquireScaledImage(page, box, gc, rescaling.images));
+
+            CompletableFuture.allOf(rescaling.images.values().stream().map(ScaledImageCache.Handle::getImage).toArray(CompletableFuture<?>[]::new))
+                    .whenComplete((v, err) -> SwingUtilities.invokeLater(() -> finishRescaling(rescaling)));
+        }
+
+        /**
+         * Swaps in the images of a finished rescaling, unless it has been cancelled in the meantime.
+         *
+         * @param rescaling the finished {@link Rescaling}
+         */
+        private void finishRescaling(Rescaling rescaling) {
+            if (pendingRescaling != rescaling) {
+                return;
+            }
+
+            pendingRescaling = null;
+
+            Map<Integer, ScaledImageCache.Handle> oldImages = images;
+
+            panelDim = rescaling.box;
+            graphicsConfiguration = rescaling.gc;
+            images = rescaling.images;
+
+            // releasing a handle which has been evicted concurrently has no effect
+            oldImages.values().forEach(ScaledImageCache.getInstance()::release);
+
+            // pages evicted from the cache while rescaling
+            List<Integer> windowPages = getPages().getWindowPages();
+            images.keySet().stream().filter(page -> !windowPages.contains(page)).collect(Collectors.toList()).forEach(this::evict);
+
+            showPage(currImageNumber, System.nanoTime());
+
+            LOG.info("Finished rescaling images of panel " + imagePanel);
+        }
+
+        /**
+         * Cancels a rescaling running in the background and releases its images. Scalings no other panel holds are
+         * cancelled by the {@link ScaledImageCache}.
+         */
+        private void cancelRescaling() {
+            if (pendingRescaling != null) {
+                pendingRescaling.images.values().forEach(ScaledImageCache.getInstance()::release);
+                pendingRescaling = null;
+            }
+        }
+
+        /**
+         * Drops the displayed version of a page evicted from a cache, if this panel displays the pages of that cache.
+         *
+         * @param deck the cache the page has been evicted from
+         * @param page the page-number
+         */
+        private void evict(PageCache deck, int page) {
+            if (selectPages(panelDim) == deck) {
+                evict(page);
+            }
+        }
+
+        /**
+         * Drops the displayed version of a page.
+         *
+         * @param page the page-number
+         */
+        private void evict(int page) {
+            ScaledImageCache.Handle handle = images.remove(page);
+
+            if (handle != null) {
+                ScaledImageCache.getInstance().release(handle);
+            }
+        }
+
+        /**
+         * Scales an image to fit into a panel. It is converted into the format of each screen showing it afterwards.
+         *
+         * @param i         the image
+         * @param box       the size of the panel
+         * @param algorithm the {@link ImageScaler.Algorithm}
+         * @return the scaled image
+         */
+        private BufferedImage scale(BufferedImage i, Dimension box, ImageScaler.Algorithm algorithm) {
+            BufferedImage scaled = i;
+
+            // pages of a display-profile matching the panel already fit into it
+            boolean fitted = i.getWidth() <= box.width && i.getHeight() <= box.height
+                    && (i.getWidth() == box.width || i.getHeight() == box.height);
+
+            if (box.width > 0 && box.height > 0 && !fitted) {
+                Dimension scaledDim = ImageScaler.fitInto(i.getWidth(), i.getHeight(), box);
+                scaled = ImageScaler.scale(i, scaledDim.width, scaledDim.height, algorithm);
+            }
+
+            return scaled;
+        }
+
+        public JPanel getImagePanel() {
+            return imagePanel;
+        }
+
+        public JLabel getImageLabel() {
+            return imageLabel;
+        }
+
+        /**
+         * Refreshes the currently used image on the imageLabel, usually used in conjunction with a page change.
+         * If the page is still being rendered, the previous slide stays up until it is scaled.
+         */
+        public void refreshImage() {
+            showPage(currImageNumber, System.nanoTime());
+        }
+
+        /**
+         * Shows the scaled version of a page on the imageLabel without blocking the calling thread. If it is not
+         * scaled yet, the previous slide stays up, so the audience never sees a blank screen, and the page replaces it
+         * on the EDT once it is scaled, unless another page has been selected in the meantime. To the audience the
+         * page change therefore waits for the target page. A page which failed to render keeps the previous slide up.
+         *
+         * @param page        the page-number
+         * @param requestedAt the {@link System#nanoTime()} the page was requested at
+         */
+        private void showPage(int page, long requestedAt) {
+            CompletableFuture<AcceleratedSlideIcon> scaled = getScaledImage(page);
+
+            if (scaled.isDone() && !scaled.isCompletedExceptionally() && SwingUtilities.isEventDispatchThread()) {
+                AcceleratedSlideIcon icon = scaled.join();
+                icon.markShown(requestedAt);
+                imageLabel.setIcon(icon);
+                return;
+            }
+
+            scaled.whenCompleteAsync((icon, err) -> {
+                if (page != currImageNumber) {
+                    return;
+                }
+
+                if (err instanceof CancellationException || err != null && err.getCause() instanceof CancellationException) {
+                    // replaced by a rescaling or evicted, which shows the page itself
+                    return;
+                }
+
+                if (err != null) {
+                    LOG.log(Level.WARNING, "Could not show page " + page + " on panel " + imagePanel
+                            + ", keeping the previous slide", err);
+                    return;
+                }
+
+                icon.markShown(requestedAt);
+                imageLabel.setIcon(icon);
+            }, SwingUtilities::invokeLater);
+        }
+
+        /**
+         * The images of a rescaling running in the background.
+         */
+        private class Rescaling {
+            /**
+             * The size of the panel the images are scaled to.
+             */
+            private final Dimension box;
+
+            /**
+             * The {@link GraphicsConfiguration} of the screen the images are prepared for.
+             */
+            private final GraphicsConfiguration gc;
+
+            /**
+             * The handles of the rescaled images by their page-number.
+             */
+            private final Map<Integer, ScaledImageCache.Handle> images = new ConcurrentHashMap<>();
+
+            /**
+             * The Constructor.
+             *
+             * @param box the size of the panel
+             * @param gc  the {@link GraphicsConfiguration} of the panel's screen
+             */
+            Rescaling(Dimension box, GraphicsConfiguration gc) {
+                this.box = box;
+                this.gc = gc;
+            }
         }
     }
 }
@@ -1,5 +1,6 @@
 package logic;
 
+import logic.pdftoppm.RenderResolution;
 import org.icepdf.core.exceptions.PDFException;
 import org.icepdf.core.exceptions.PDFSecurityException;
 import viewComponents.ScreenSetupFrame;
@@ -7,6 +8,7 @@ import viewComponents.ScreenSetupFrame;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /*
@@ -41,6 +43,35 @@ public interface PDFViewerController {
      * @return the controller
      */
     static PDFViewerController createNewControllersByName(String name, int amount) {
+        return createNewControllersByName(name, amount, new GraphicsDevice[0]);
+    }
+
+    /**
+     * This method creates a {@link PDFViewerController} for a given string, rendering the pages for the given screens
+     * if the controller pre-renders them.
+     *
+     * @param name the name of the {@link PDFViewerController}
+     * @param amount the amount of Panels containing controllers should be created
+     * @param screens the screens the panels are displayed on
+     * @return the controller
+     */
+    static PDFViewerController createNewControllersByName(String name, int amount, GraphicsDevice... screens) {
+        return createNewControllersByName(name, amount, PageCache.UNBOUNDED, Long.MAX_VALUE, screens);
+    }
+
+    /**
+     * This method creates a {@link PDFViewerController} for a given string, rendering the pages for the given screens
+     * and keeping only a window of them if the controller pre-renders them.
+     *
+     * @param name                  the name of the {@link PDFViewerController}
+     * @param amount                the amount of Panels containing controllers should be created
+     * @param pageCacheWindow       the number of pages kept before and after the current page or {@link PageCache#UNBOUNDED}
+     * @param pageCacheMemoryBudget the maximum number of bytes pages outside of the window may take
+     * @param screens               the screens the panels are displayed on
+     * @return the controller
+     */
+    static PDFViewerController createNewControllersByName(String name, int amount, int pageCacheWindow,
+                                                          long pageCacheMemoryBudget, GraphicsDevice... screens) {
         PDFViewerController pdfvc;
 
         switch (name.toLowerCase()) {
@@ -49,7 +80,11 @@ public interface PDFViewerController {
                 break;
 
             case "pdftoppm-local":
-                pdfvc = new PDFToPPMLocalController();
+                pdfvc = new PDFToPPMLocalController(RenderResolution.forScreens(screens));
+                break;
+
+            case "icepdf-prerender":
+                pdfvc = new IcePDFPrerenderController(RenderResolution.forScreens(screens));
                 break;
 
             default:
@@ -57,6 +92,10 @@ public interface PDFViewerController {
 
         }
 
+        if (pdfvc instanceof PDFToPPMLocalController) {
+            ((PDFToPPMLocalController) pdfvc).setPageCacheWindow(pageCacheWindow, pageCacheMemoryBudget);
+        }
+
         pdfvc.createNewControllers(amount);
         return pdfvc;
     }
@@ -149,6 +188,34 @@ public interface PDFViewerController {
      */
     void loadNewFile(String filePath) throws IOException, PDFException, PDFSecurityException, InterruptedException, ExecutionException;
 
+    /**
+     * Loads a new PDF-Document into the controller without blocking the caller. The currently loaded document stays
+     * usable until the new one is ready to be displayed. Cancelling the returned future stops the loading and
+     * discards everything loaded so far.
+     * Controllers which load quickly may load the document synchronously, which is the default.
+     *
+     * @param filePath The absolute path to the file which shall be loaded.
+     * @param listener The {@link LoadProgressListener} notified about loaded pages or null.
+     * @return A future completed as soon as the new document is displayed.
+     */
+    default CompletableFuture<Void> loadNewFileAsync(String filePath, LoadProgressListener listener) {
+        CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+        try {
+            loadNewFile(filePath);
+
+            if (listener != null) {
+                listener.progress(new LoadProgress(getPageCount(), getPageCount(), 0, 0, 0));
+            }
+
+            loaded.complete(null);
+        } catch (IOException | PDFException | PDFSecurityException | InterruptedException | ExecutionException e) {
+            loaded.completeExceptionally(e);
+        }
+
+        return loaded;
+    }
+
     /**
      * Writes the currently loaded Presentation to a location within the filesystem.
      * @param file the path to be written to
@@ -0,0 +1,402 @@
+package logic;
+
+import logic.pdftoppm.RenderScheduler;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Holds the full-resolution pages of a presentation. An unbounded cache keeps every page once it is materialized.
+ * A windowed cache only guarantees to keep the pages within a window around the current page as well as the first
+ * and the last page; all other pages are evicted in least-recently-used order as soon as the memory-budget is
+ * exceeded and re-materialized from the {@link PageSource} on demand.
+ */
+public class PageCache {
+
+    private static final Logger LOG = Logger.getLogger(PageCache.class.getName());
+
+    /**
+     * The window-size of a cache which never evicts any page.
+     */
+    public static final int UNBOUNDED = -1;
+
+    /**
+     * The source evicted pages are re-materialized from, or null if pages cannot be re-materialized.
+     */
+    private final PageSource source;
+
+    /**
+     * The number of pages.
+     */
+    private final int pageCount;
+
+    /**
+     * The number of pages kept before and after the current page or {@link #UNBOUNDED}.
+     */
+    private final int window;
+
+    /**
+     * The maximum number of bytes the pages outside of the window may take.
+     */
+    private final long memoryBudget;
+
+    /**
+     * The cached pages in least-recently-used order, each completed as soon as the page is materialized.
+     */
+    private final LinkedHashMap<Integer, CompletableFuture<BufferedImage>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Listeners notified about the numbers of evicted pages.
+     */
+    private final List<IntConsumer> evictionListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The number of the currently displayed page.
+     */
+    private int currentPage;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates an unbounded cache.
+     *
+     * @param source    The source pages are materialized from or null, if every page is put into the cache.
+     * @param pageCount The number of pages.
+     */
+    public PageCache(PageSource source, int pageCount) {
+        this(source, pageCount, UNBOUNDED, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a windowed cache. Without a source the cache cannot re-materialize pages and is therefore unbounded.
+     *
+     * @param source       The source pages are materialized from or null, if every page is put into the cache.
+     * @param pageCount    The number of pages.
+     * @param window       The number of pages kept before and after the current page or {@link #UNBOUNDED}.
+     * @param memoryBudget The maximum number of bytes the pages outside of the window may take.
+     */
+    public PageCache(PageSource source, int pageCount, int window, long memoryBudget) {
+        this.source = source;
+        this.pageCount = pageCount;
+        this.window = source == null ? UNBOUNDED : window;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Returns the number of pages.
+     *
+     * @return The number of pages.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Returns whether this cache might evict pages.
+     *
+     * @return Whether this cache is windowed.
+     */
+    public boolean isWindowed() {
+        return window != UNBOUNDED;
+    }
+
+    /**
+     * Returns a page which is about to be displayed, counting a hit if it is already materialized and a miss otherwise.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return A future completed with the page.
+     */
+    public synchronized CompletableFuture<BufferedImage> get(int page) {
+        CompletableFuture<BufferedImage> entry = entries.get(page);
+
+        if (entry != null && entry.isDone() && !entry.isCompletedExceptionally()) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+
+        return request(page, RenderScheduler.PRIORITY_VISIBLE);
+    }
+
+    /**
+     * Returns a page without counting a hit or a miss, materializing it in the background if necessary.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return A future completed with the page.
+     */
+    public synchronized CompletableFuture<BufferedImage> prefetch(int page) {
+        return request(page, RenderScheduler.PRIORITY_PREFETCH);
+    }
+
+    /**
+     * Returns a cached page or starts materializing it.
+     *
+     * @param page     The number of the page.
+     * @param priority The priority of the materialization.
+     * @return A future completed with the page.
+     */
+    private CompletableFuture<BufferedImage> request(int page, int priority) {
+        CompletableFuture<BufferedImage> entry = entries.get(page);
+
+        if (entry != null && !entry.isCompletedExceptionally()) {
+            return entry;
+        }
+
+        if (source == null) {
+            return entry != null ? entry : failedPage(page);
+        }
+
+        CompletableFuture<BufferedImage> loaded = RenderScheduler.getInstance().submit(() -> source.loadPage(page), priority);
+        add(page, loaded);
+
+        return loaded;
+    }
+
+    /**
+     * Adds a page which is materialized elsewhere, e.g. by rendering the whole document at once.
+     *
+     * @param page  The number of the page, starting at 0.
+     * @param image A future completed with the page.
+     */
+    public synchronized void put(int page, CompletableFuture<BufferedImage> image) {
+        add(page, image);
+    }
+
+    /**
+     * Adds an entry and evicts pages once it is materialized.
+     *
+     * @param page  The number of the page.
+     * @param image A future completed with the page.
+     */
+    private void add(int page, CompletableFuture<BufferedImage> image) {
+        entries.put(page, image);
+
+        if (isWindowed()) {
+            image.thenRun(this::evict);
+        }
+    }
+
+    /**
+     * Sets the currently displayed page, evicting pages which left the window and prefetching the pages which entered it.
+     *
+     * @param page The number of the page, starting at 0.
+     */
+    public synchronized void setCurrentPage(int page) {
+        this.currentPage = page;
+
+        if (!isWindowed()) {
+            return;
+        }
+
+        evict();
+
+        for (int p : getWindowPages()) {
+            request(p, RenderScheduler.PRIORITY_PREFETCH);
+        }
+    }
+
+    /**
+     * Returns the pages which are never evicted at the current page, ordered by their distance to the current page.
+     *
+     * @return The page-numbers.
+     */
+    public synchronized List<Integer> getWindowPages() {
+        return getWindowPages(currentPage);
+    }
+
+    /**
+     * Returns the pages which are never evicted at a given page, ordered by their distance to that page.
+     *
+     * @param currentPage The page-number.
+     * @return The page-numbers.
+     */
+    public synchronized List<Integer> getWindowPages(int currentPage) {
+        List<Integer> pages = new ArrayList<>();
+
+        if (!isWindowed()) {
+            for (int p = 0; p < pageCount; p++) {
+                pages.add(p);
+            }
+
+            return pages;
+        }
+
+        for (int distance = 0; distance <= window; distance++) {
+            addPage(pages, currentPage + distance);
+            addPage(pages, currentPage - distance);
+        }
+
+        addPage(pages, 0);
+        addPage(pages, pageCount - 1);
+
+        return pages;
+    }
+
+    /**
+     * Adds a page-number to a list if it exists and is not contained yet.
+     *
+     * @param pages The list.
+     * @param page  The page-number.
+     */
+    private void addPage(List<Integer> pages, int page) {
+        if (page >= 0 && page < pageCount && !pages.contains(page)) {
+            pages.add(page);
+        }
+    }
+
+    /**
+     * Returns whether a page is never evicted at the current page.
+     *
+     * @param page The number of the page.
+     * @return Whether the page is pinned.
+     */
+    private boolean isPinned(int page) {
+        return Math.abs(page - currentPage) <= window || page == 0 || page == pageCount - 1;
+    }
+
+    /**
+     * Evicts the least-recently-used pages outside of the window until they fit into the memory-budget.
+     */
+    private synchronized void evict() {
+        long unpinnedMemory = 0;
+
+        for (Map.Entry<Integer, CompletableFuture<BufferedImage>> e : entries.entrySet()) {
+            if (!isPinned(e.getKey())) {
+                unpinnedMemory += memoryOf(e.getValue());
+            }
+        }
+
+        Iterator<Map.Entry<Integer, CompletableFuture<BufferedImage>>> it = entries.entrySet().iterator();
+
+        while (unpinnedMemory > memoryBudget && it.hasNext()) {
+            Map.Entry<Integer, CompletableFuture<BufferedImage>> e = it.next();
+
+            if (isPinned(e.getKey()) || !e.getValue().isDone()) {
+                continue;
+            }
+
+            unpinnedMemory -= memoryOf(e.getValue());
+            it.remove();
+            evictions.incrementAndGet();
+
+            LOG.fine("Evicted page " + (e.getKey() + 1) + ", " + unpinnedMemory + " bytes outside of the window remaining");
+
+            evictionListeners.forEach(l -> l.accept(e.getKey()));
+        }
+    }
+
+    /**
+     * Estimates the memory a materialized page takes.
+     *
+     * @param image A future completed with the page.
+     * @return The number of bytes or 0, if the page is not materialized.
+     */
+    private static long memoryOf(CompletableFuture<BufferedImage> image) {
+        if (!image.isDone() || image.isCompletedExceptionally()) {
+            return 0;
+        }
+
+        return sizeOf(image.join());
+    }
+
+    /**
+     * Returns the memory the pixels of an image take.
+     *
+     * @param image The image.
+     * @return The number of bytes.
+     */
+    public static long sizeOf(BufferedImage image) {
+        DataBuffer data = image.getRaster().getDataBuffer();
+        return (long) data.getSize() * data.getNumBanks() * (DataBuffer.getDataTypeSize(data.getDataType()) / 8);
+    }
+
+    /**
+     * Returns the number of bytes the materialized pages take.
+     *
+     * @return The number of bytes.
+     */
+    public synchronized long getMemoryUsage() {
+        return entries.values().stream().mapToLong(PageCache::memoryOf).sum();
+    }
+
+    /**
+     * Adds a listener notified about the numbers of evicted pages.
+     *
+     * @param listener The listener.
+     */
+    public void addEvictionListener(IntConsumer listener) {
+        evictionListeners.add(listener);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Creates a future of a page which can neither be found nor materialized.
+     *
+     * @param page The number of the page.
+     * @return The failed future.
+     */
+    private static CompletableFuture<BufferedImage> failedPage(int page) {
+        CompletableFuture<BufferedImage> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Page " + (page + 1) + " is not available"));
+        return failed;
+    }
+
+    /**
+     * Releases the resources of the source of this cache, once the cache is not used anymore.
+     */
+    public void close() {
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("PageCache[pages=%d, window=%s, cached=%d, memory=%d MB, hits=%d, misses=%d, evictions=%d]",
+                pageCount, isWindowed() ? "+-" + window : "unbounded", entries.size(), getMemoryUsage() / (1024 * 1024),
+                getHits(), getMisses(), getEvictions());
+    }
+}
@@ -0,0 +1,249 @@
+package logic;
+
+import org.icepdf.core.exceptions.PDFException;
+import org.icepdf.core.exceptions.PDFSecurityException;
+import org.icepdf.core.pobjects.Dictionary;
+import org.icepdf.core.pobjects.Document;
+import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.PDimension;
+import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.pobjects.PageTree;
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.pobjects.Stream;
+import org.icepdf.core.pobjects.StringObject;
+import org.icepdf.core.util.Library;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Computes a fingerprint of every page of a PDF-document from the objects the page is drawn from: its content-streams
+ * and everything reachable from its dictionary, e.g. fonts, images and annotations, as well as the inherited resources
+ * and the page-size. Pages with equal fingerprints render equally, so unchanged pages of a modified document can be
+ * reused from a previous rendering.
+ * <p>
+ * The back-references to the page-tree are not followed, thus a page does not depend on other pages. Objects shared by
+ * multiple pages, e.g. embedded fonts, are hashed only once per document.
+ */
+public class PageFingerprints {
+
+    /**
+     * The keys whose values do not affect the appearance of a page and would make it depend on the whole document.
+     */
+    private static final Set<String> IGNORED_KEYS = new HashSet<>(Arrays.asList("Parent", "P", "LastModified",
+            "Metadata", "PieceInfo", "Thumb", "StructParents"));
+
+    /**
+     * The attributes a page inherits from its ancestors in the page-tree.
+     */
+    private static final Name[] INHERITED_KEYS = {PageTree.RESOURCES_KEY, PageTree.MEDIABOX_KEY, PageTree.CROPBOX_KEY,
+            PageTree.ROTATE_KEY};
+
+    /**
+     * The library resolving the references of the document.
+     */
+    private final Library library;
+
+    /**
+     * The digests of the referenced objects hashed so far.
+     */
+    private final Map<Reference, byte[]> digests = new HashMap<>();
+
+    /**
+     * The references currently being hashed, for breaking cycles.
+     */
+    private final Set<Reference> pending = new HashSet<>();
+
+    /**
+     * The Constructor.
+     *
+     * @param library The library resolving the references of the document.
+     */
+    private PageFingerprints(Library library) {
+        this.library = library;
+    }
+
+    /**
+     * Computes the fingerprints of all pages of a document.
+     *
+     * @param filePath The path of the document.
+     * @param salt     Distinguishes renderings of equal pages, e.g. the renderer and the resolution.
+     * @return The fingerprints of {@link logic.pktool.DeckFormat#FINGERPRINT_SIZE} bytes, indexed by page.
+     * @throws IOException          If the file cannot be read.
+     * @throws PDFException         If the file is not a valid PDF.
+     * @throws PDFSecurityException If the file is encrypted.
+     */
+    public static byte[][] compute(String filePath, String salt) throws IOException, PDFException, PDFSecurityException {
+        Document document = new Document();
+
+        try {
+            document.setFile(filePath);
+
+            PageTree pageTree = document.getPageTree();
+            PageFingerprints fingerprints = new PageFingerprints(pageTree.getLibrary());
+            byte[][] result = new byte[document.getNumberOfPages()][];
+
+            for (int p = 0; p < result.length; p++) {
+                MessageDigest digest = sha256();
+                digest.update(salt.getBytes(StandardCharsets.UTF_8));
+
+                PDimension size = document.getPageDimension(p, 0f);
+                digest.update((size.getWidth() + "x" + size.getHeight()).getBytes(StandardCharsets.UTF_8));
+
+                fingerprints.update(digest, pageTree.getPageReference(p));
+                fingerprints.updateInherited(digest, pageTree.getPage(p));
+
+                result[p] = digest.digest();
+            }
+
+            return result;
+        } finally {
+            document.dispose();
+        }
+    }
+
+    /**
+     * Hashes the attributes a page inherits from its ancestors, as they are not part of its dictionary.
+     *
+     * @param digest The digest.
+     * @param page   The page.
+     */
+    private void updateInherited(MessageDigest digest, Page page) {
+        for (Name key : INHERITED_KEYS) {
+            Object node = page;
+
+            while (node instanceof Dictionary && !((Dictionary) node).getEntries().containsKey(key)) {
+                node = library.getObject(((Dictionary) node).getEntries().get(PageTree.PARENT_KEY));
+            }
+
+            if (node instanceof Dictionary && node != page) {
+                update(digest, "/" + key.getName());
+                update(digest, ((Dictionary) node).getEntries().get(key));
+            }
+        }
+    }
+
+    /**
+     * Hashes a PDF-object, following references.
+     *
+     * @param digest The digest.
+     * @param value  The object.
+     */
+    private void update(MessageDigest digest, Object value) {
+        if (value instanceof Reference) {
+            digest.update(digestOf((Reference) value));
+        } else if (value instanceof Stream) {
+            update(digest, ((Stream) value).getEntries());
+
+            byte[] data = ((Stream) value).getRawBytes();
+            digest.update(("stream" + (data == null ? 0 : data.length)).getBytes(StandardCharsets.UTF_8));
+            if (data != null) {
+                digest.update(data);
+            }
+        } else if (value instanceof Dictionary) {
+            update(digest, ((Dictionary) value).getEntries());
+        } else if (value instanceof Map) {
+            // sorted by key, as the order of the entries of a HashMap is arbitrary
+            Map<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> sorted.put(k.toString(), v));
+
+            digest.update((byte) '<');
+            sorted.forEach((k, v) -> {
+                if (!IGNORED_KEYS.contains(k)) {
+                    update(digest, "/" + k);
+                    update(digest, v);
+                }
+            });
+            digest.update((byte) '>');
+        } else if (value instanceof List) {
+            digest.update((byte) '[');
+            ((List<?>) value).forEach(v -> update(digest, v));
+            digest.update((byte) ']');
+        } else if (value instanceof StringObject) {
+            update(digest, "(" + ((StringObject) value).getHexString() + ")");
+        } else if (value instanceof Name) {
+            update(digest, "/" + ((Name) value).getName());
+        } else {
+            update(digest, String.valueOf(value));
+        }
+    }
+
+    /**
+     * Hashes a string, terminated so consecutive strings cannot be confused.
+     *
+     * @param digest The digest.
+     * @param value  The string.
+     */
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Returns the digest of a referenced object, hashing it upon first use.
+     *
+     * @param reference The reference.
+     * @return The digest.
+     */
+    private byte[] digestOf(Reference reference) {
+        byte[] known = digests.get(reference);
+
+        if (known != null) {
+            return known;
+        }
+
+        if (!pending.add(reference)) {
+            // a cycle, the referenced object is already being hashed
+            return ("R" + reference.getObjectNumber()).getBytes(StandardCharsets.UTF_8);
+        }
+
+        MessageDigest digest = sha256();
+        update(digest, library.getObject(reference));
+
+        byte[] result = digest.digest();
+        pending.remove(reference);
+        digests.put(reference, result);
+
+        return result;
+    }
+
+    /**
+     * Creates a SHA-256-digest, which every JRE supports.
+     *
+     * @return The digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
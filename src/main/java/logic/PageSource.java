@@ -0,0 +1,50 @@
+package logic;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A source the pages of a presentation can be (re-)materialized from, e.g. by rendering them or decoding them from a file.
+ */
+public interface PageSource {
+
+    /**
+     * Returns the number of pages.
+     *
+     * @return The number of pages.
+     */
+    int getPageCount();
+
+    /**
+     * Materializes a single page. Might be called from any thread and might take a while.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return The page.
+     * @throws IOException If the page cannot be materialized.
+     */
+    BufferedImage loadPage(int page) throws IOException;
+
+    /**
+     * Releases the resources held by this source. Pages cannot be materialized anymore afterwards.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,432 @@
+package logic;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Holds the scaled versions of the pages, shared between all panels and controllers.
+ * Panels of the same size showing the same deck thereby scale and store every page only once, even if they request
+ * it at the same time or are placed on different screens. Only the cheap conversion of a scaled page into an image
+ * compatible with a screen is done once per {@link GraphicsConfiguration}. An entry is kept as long as at least one
+ * panel holds it.
+ * <p>
+ * Every acquisition returns a {@link Handle} which releases exactly the entry it acquired, so releasing a failed
+ * scaling never affects a retry started for the same key in the meantime.
+ */
+public class ScaledImageCache {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(ScaledImageCache.class.getName());
+
+    /**
+     * The instance shared by all controllers.
+     */
+    private static final ScaledImageCache INSTANCE = new ScaledImageCache();
+
+    /**
+     * The scaled images by their {@link Key}.
+     */
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    /**
+     * The number of requests answered by an existing entry.
+     */
+    private long hits;
+
+    /**
+     * The number of requests which started the scaling of a page.
+     */
+    private long misses;
+
+    /**
+     * Returns the instance shared by all controllers.
+     *
+     * @return The {@link ScaledImageCache}.
+     */
+    public static ScaledImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the scaled image for a key prepared for a screen and holds it until the returned handle is released.
+     * The scaling is only started if no other holder has requested the same key before and is cancelled if all
+     * holders release the image before it is finished. The scaled image is prepared once per screen.
+     *
+     * @param key          The {@link Key}.
+     * @param gc           The {@link GraphicsConfiguration} of the screen or null, if it is unknown.
+     * @param acceleration The {@link AcceleratedSlideIcon.Acceleration} the image is prepared with.
+     * @param scaling      Starts the scaling of the page, called outside of any lock of this cache.
+     * @param preparation  Prepares the scaled image for the screen, see {@link AcceleratedSlideIcon#create}.
+     * @return The {@link Handle} of the prepared image.
+     */
+    public Handle acquire(Key key, GraphicsConfiguration gc, AcceleratedSlideIcon.Acceleration acceleration,
+                          Supplier<CompletableFuture<BufferedImage>> scaling,
+                          Function<BufferedImage, AcceleratedSlideIcon> preparation) {
+        Screen screen = new Screen(gc, acceleration);
+        Entry entry;
+        Prepared prepared;
+        boolean created = false;
+        boolean createdPrepared = false;
+
+        synchronized (this) {
+            entry = entries.get(key);
+
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                created = true;
+                misses++;
+            } else {
+                hits++;
+            }
+
+            entry.holders++;
+
+            prepared = entry.prepared.get(screen);
+
+            if (prepared == null) {
+                prepared = new Prepared();
+                entry.prepared.put(screen, prepared);
+                createdPrepared = true;
+            }
+
+            prepared.holders++;
+        }
+
+        if (created) {
+            Entry started = entry;
+            CompletableFuture<BufferedImage> work = scaling.get();
+            boolean abandoned;
+
+            synchronized (this) {
+                abandoned = started.holders == 0;
+                started.scaling = work;
+            }
+
+            if (abandoned) {
+                work.cancel(false);
+            }
+
+            work.whenComplete((scaled, err) -> {
+                if (err != null) {
+                    // failed scalings are not cached, so a later request may retry them
+                    synchronized (this) {
+                        entries.remove(key, started);
+                    }
+
+                    started.image.completeExceptionally(err);
+                } else {
+                    started.image.complete(scaled);
+                }
+            });
+        }
+
+        if (createdPrepared) {
+            Entry owner = entry;
+            Prepared started = prepared;
+
+            entry.image.thenApplyAsync(preparation).whenComplete((icon, err) -> {
+                if (err != null) {
+                    // a failed preparation is not kept, so a later request for the screen may retry it
+                    synchronized (this) {
+                        owner.prepared.remove(screen, started);
+                    }
+
+                    started.icon.completeExceptionally(err);
+                } else {
+                    started.icon.complete(icon);
+                }
+            });
+        }
+
+        return new Handle(key, entry, screen, prepared);
+    }
+
+    /**
+     * Releases a scaled image acquired before. The image is dropped once it has no holders anymore,
+     * cancelling its scaling if still running. Releasing a handle more than once has no effect.
+     *
+     * @param handle The {@link Handle} returned by {@link #acquire}.
+     */
+    public void release(Handle handle) {
+        Entry entry = handle.entry;
+        Prepared prepared = handle.prepared;
+        CompletableFuture<BufferedImage> work;
+
+        synchronized (this) {
+            if (handle.released) {
+                return;
+            }
+
+            handle.released = true;
+
+            if (--prepared.holders == 0) {
+                entry.prepared.remove(handle.screen, prepared);
+
+                // the video-memory is only touched by painting on the EDT, so it is released there as well
+                prepared.icon.thenAccept(icon -> SwingUtilities.invokeLater(icon::flush));
+            }
+
+            if (--entry.holders > 0) {
+                return;
+            }
+
+            // a failed entry has already been replaced by a retry, which must be kept
+            entries.remove(handle.key, entry);
+            work = entry.scaling;
+        }
+
+        if (work != null && !work.isDone()) {
+            LOG.fine("Cancelled scaling of " + handle.key);
+            work.cancel(false);
+        }
+
+        LOG.fine("Dropped scaled image " + handle.key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ScaledImageCache{entries=" + entries.size() + ", hits=" + hits + ", misses=" + misses + "}";
+    }
+
+    /**
+     * A scaled image, its versions prepared for the screens and the number of its holders.
+     */
+    private static class Entry {
+        /**
+         * The scaled image, completed as soon as the scaling is finished.
+         */
+        private final CompletableFuture<BufferedImage> image = new CompletableFuture<>();
+
+        /**
+         * The versions of the image prepared for the screens of the holders, guarded by the cache.
+         */
+        private final Map<Screen, Prepared> prepared = new HashMap<>();
+
+        /**
+         * The number of holders of this entry.
+         */
+        private int holders;
+
+        /**
+         * The running scaling, set once it has been started, guarded by the cache.
+         */
+        private CompletableFuture<BufferedImage> scaling;
+    }
+
+    /**
+     * A scaled image prepared for a screen and the number of its holders.
+     */
+    private static class Prepared {
+        /**
+         * The prepared image, completed as soon as the scaled image is prepared.
+         */
+        private final CompletableFuture<AcceleratedSlideIcon> icon = new CompletableFuture<>();
+
+        /**
+         * The number of holders of this version, guarded by the cache.
+         */
+        private int holders;
+    }
+
+    /**
+     * Identifies the screen a scaled image is prepared for.
+     */
+    private static final class Screen {
+        /**
+         * The {@link GraphicsConfiguration} of the screen or null.
+         */
+        private final GraphicsConfiguration graphicsConfiguration;
+
+        /**
+         * The {@link AcceleratedSlideIcon.Acceleration} the image is prepared with.
+         */
+        private final AcceleratedSlideIcon.Acceleration acceleration;
+
+        /**
+         * The Constructor.
+         *
+         * @param graphicsConfiguration The {@link GraphicsConfiguration} or null.
+         * @param acceleration          The {@link AcceleratedSlideIcon.Acceleration}.
+         */
+        private Screen(GraphicsConfiguration graphicsConfiguration, AcceleratedSlideIcon.Acceleration acceleration) {
+            this.graphicsConfiguration = graphicsConfiguration;
+            this.acceleration = acceleration;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Screen)) {
+                return false;
+            }
+
+            Screen screen = (Screen) o;
+            return Objects.equals(graphicsConfiguration, screen.graphicsConfiguration) && acceleration == screen.acceleration;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(graphicsConfiguration, acceleration);
+        }
+    }
+
+    /**
+     * A holder's reference to a scaled image prepared for a screen, see {@link #acquire}.
+     */
+    public static final class Handle {
+        /**
+         * The key the image was acquired for.
+         */
+        private final Key key;
+
+        /**
+         * The entry acquired.
+         */
+        private final Entry entry;
+
+        /**
+         * The screen the image was acquired for.
+         */
+        private final Screen screen;
+
+        /**
+         * The version of the image prepared for the screen.
+         */
+        private final Prepared prepared;
+
+        /**
+         * Whether this handle has been released, guarded by the cache.
+         */
+        private boolean released;
+
+        /**
+         * The Constructor.
+         *
+         * @param key      The key the image was acquired for.
+         * @param entry    The entry acquired.
+         * @param screen   The screen the image was acquired for.
+         * @param prepared The version of the image prepared for the screen.
+         */
+        private Handle(Key key, Entry entry, Screen screen, Prepared prepared) {
+            this.key = key;
+            this.entry = entry;
+            this.screen = screen;
+            this.prepared = prepared;
+        }
+
+        /**
+         * Returns the scaled image prepared for the screen.
+         *
+         * @return A future completed with the prepared image.
+         */
+        public CompletableFuture<AcceleratedSlideIcon> getImage() {
+            return prepared.icon;
+        }
+    }
+
+    /**
+     * Identifies a scaled page by its deck, page-number, the size it is fitted into and how it was scaled.
+     */
+    public static final class Key {
+        /**
+         * The deck the page belongs to, compared by identity.
+         */
+        private final Object deck;
+
+        /**
+         * The page-number.
+         */
+        private final int page;
+
+        /**
+         * The size the page is fitted into.
+         */
+        private final Dimension size;
+
+        /**
+         * The {@link ImageScaler.Algorithm} used for scaling.
+         */
+        private final ImageScaler.Algorithm algorithm;
+
+        /**
+         * The Constructor.
+         *
+         * @param deck      The deck the page belongs to.
+         * @param page      The page-number.
+         * @param size      The size the page is fitted into.
+         * @param algorithm The {@link ImageScaler.Algorithm}.
+         */
+        public Key(Object deck, int page, Dimension size, ImageScaler.Algorithm algorithm) {
+            this.deck = deck;
+            this.page = page;
+            this.size = new Dimension(size);
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return deck == key.deck && page == key.page && size.equals(key.size) && algorithm == key.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(deck), page, size, algorithm);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{page=" + page + ", size=" + size.width + "x" + size.height + ", algorithm=" + algorithm + "}";
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package logic.pdftoppm;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The image-formats pdftoppm can be asked to write.
+ */
+public enum OutputFormat {
+    /**
+     * PNG-compressed images, decoded using {@link javax.imageio.ImageIO}.
+     */
+    PNG("-png"),
+
+    /**
+     * Raw binary PPM-images, decoded by a {@link PPMStreamDecoder}.
+     */
+    PPM(null);
+
+    /**
+     * The command-line-argument selecting this format or null, if it is pdftoppm's default.
+     */
+    private final String argument;
+
+    OutputFormat(String argument) {
+        this.argument = argument;
+    }
+
+    public String getArgument() {
+        return argument;
+    }
+}
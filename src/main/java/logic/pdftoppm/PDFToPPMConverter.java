@@ -5,9 +5,12 @@ import org.apache.commons.lang3.ArrayUtils;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Logger;
@@ -55,49 +58,137 @@ public class PDFToPPMConverter implements Callable<BufferedImage> {
      */
     private final CountDownLatch latch;
 
-//        private final ProgressWindow progress;
+    /**
+     * The {@link OutputFormat} pdftoppm is asked to write.
+     */
+    private final OutputFormat format;
 
     /**
-     * The Constructor.
+     * The {@link RenderResolution} of the rendered page.
+     */
+    private final RenderResolution resolution;
+
+    /**
+     * The {@link RenderCancellation} the process is registered at.
+     */
+    private final RenderCancellation cancellation;
+
+
+    /**
+     * The Constructor, rendering to PNG at {@link RenderResolution#DEFAULT}.
      *
      * @param page     The page-number.
      * @param filePath The path to the PDF-document.
      * @param latch    The {@link CountDownLatch}.
      */
     public PDFToPPMConverter(int page, String filePath, CountDownLatch latch) {
+        this(page, filePath, latch, OutputFormat.PNG, RenderResolution.DEFAULT);
+    }
+
+    /**
+     * The Constructor.
+     *
+     * @param page       The page-number.
+     * @param filePath   The path to the PDF-document.
+     * @param latch      The {@link CountDownLatch}.
+     * @param format     The {@link OutputFormat}.
+     * @param resolution The {@link RenderResolution}.
+     */
+    public PDFToPPMConverter(int page, String filePath, CountDownLatch latch, OutputFormat format, RenderResolution resolution) {
+        this(page, filePath, latch, format, resolution, RenderCancellation.NONE);
+    }
+
+    /**
+     * The Constructor.
+     *
+     * @param page         The page-number.
+     * @param filePath     The path to the PDF-document.
+     * @param latch        The {@link CountDownLatch}.
+     * @param format       The {@link OutputFormat}.
+     * @param resolution   The {@link RenderResolution}.
+     * @param cancellation The {@link RenderCancellation} killing the process when the rendering is cancelled.
+     */
+    public PDFToPPMConverter(int page, String filePath, CountDownLatch latch, OutputFormat format, RenderResolution resolution,
+                             RenderCancellation cancellation) {
         this.page = page;
         this.filePath = filePath;
         this.latch = latch;
-//            this.progress = progress;
+        this.format = format;
+        this.resolution = resolution;
+        this.cancellation = cancellation;
     }
 
-    @Override
-    public BufferedImage call() {
-        ProcessBuilder convertProcessBuilder = new ProcessBuilder("pdftoppm", "-f", Integer.toString(page),
-                "-l", Integer.toString(page), "-r", "220", "-png", filePath);
-        Process convertProcess;
-        BufferedImage image = null;
+    /**
+     * Renders the page, leaving the {@link CountDownLatch} untouched.
+     *
+     * @return The rendered page.
+     * @throws IOException If pdftoppm failed, timed out or did not deliver a page.
+     * @throws InterruptedException If interrupted while waiting for pdftoppm.
+     */
+    public BufferedImage render() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(Arrays.asList("pdftoppm", "-f", Integer.toString(page),
+                "-l", Integer.toString(page)));
+        command.addAll(resolution.getArguments());
 
-        try {
-            convertProcess = convertProcessBuilder.start();
+        if (format.getArgument() != null) {
+            command.add(format.getArgument());
+        }
+
+        command.add(filePath);
 
-            ArrayList<Byte> imageBytes = new ArrayList<>();
+        BufferedImage image;
 
-            for (byte b : IOUtils.toByteArray(convertProcess.getInputStream())) {
-                imageBytes.add(b);
+        try (ProcessSupervisor supervisor = ProcessSupervisor.start(command, ProcessSupervisor.DEFAULT_PAGE_TIMEOUT, cancellation)) {
+            try {
+                if (format == OutputFormat.PPM) {
+                    image = new PPMStreamDecoder(new BufferedInputStream(supervisor.getOutput(), 1 << 16)).nextImage();
+                } else {
+                    ArrayList<Byte> imageBytes = new ArrayList<>();
+
+                    for (byte b : IOUtils.toByteArray(supervisor.getOutput())) {
+                        imageBytes.add(b);
+                    }
+                    ByteArrayInputStream bais = new ByteArrayInputStream(ArrayUtils.toPrimitive(imageBytes.toArray(new Byte[imageBytes.size()])));
+
+                    image = ImageIO.read(bais);
+                }
+            } catch (IOException e) {
+                // a killed process ends its output within the page
+                supervisor.checkResult();
+                throw e;
             }
-            ByteArrayInputStream bais = new ByteArrayInputStream(ArrayUtils.toPrimitive(imageBytes.toArray(new Byte[imageBytes.size()])));
 
-            image = ImageIO.read(bais);
+            supervisor.finish();
+        }
 
-            latch.countDown();
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (image == null) {
+            throw new IOException("pdftoppm did not deliver page " + page + " of file " + filePath);
         }
 
         LOG.info("Finished rendering page " + page + " fo file " + filePath);
-//            progress.increaseProgress();
 
         return image;
     }
-}
\ No newline at end of file
+
+    /**
+     * Renders the page, always counting down the {@link CountDownLatch}, even if rendering fails.
+     *
+     * @return The rendered page or null, if rendering failed.
+     */
+    @Override
+    public BufferedImage call() {
+        try {
+            return render();
+        } catch (IOException e) {
+            if (!cancellation.isCancelled()) {
+                LOG.warning("Could not render page " + page + " of file " + filePath + ": " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            latch.countDown();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,258 @@
+package logic.pdftoppm;
+
+import logic.PageSource;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A {@link PageSource} rendering single pages of a PDF-document on demand using a {@link PDFToPPMConverter}.
+ * Failed pages are retried with an increasing delay and finally handed to a fallback-renderer, so every page
+ * either is rendered or fails within bounded time. The outcome of every page is recorded in a {@link RenderReport}.
+ */
+public class PDFToPPMPageSource implements PageSource {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(PDFToPPMPageSource.class.getName());
+
+    /**
+     * The number of times pdftoppm is asked to render a page.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The delay in milliseconds before the first retry, doubled for every further one.
+     */
+    private static final long RETRY_BACKOFF = 250;
+
+    /**
+     * The version pdftoppm reports, determined upon first use.
+     */
+    private static String version;
+
+    /**
+     * The path of the document.
+     */
+    private final String filePath;
+
+    /**
+     * The number of pages of the document.
+     */
+    private final int pageCount;
+
+    /**
+     * The {@link OutputFormat} pdftoppm is asked to write.
+     */
+    private final OutputFormat format;
+
+    /**
+     * The {@link RenderResolution} of the rendered pages.
+     */
+    private final RenderResolution resolution;
+
+    /**
+     * The {@link RenderCancellation} of the rendering.
+     */
+    private final RenderCancellation cancellation;
+
+    /**
+     * The source rendering pages pdftoppm keeps failing at or null.
+     */
+    private final PageSource fallback;
+
+    /**
+     * The outcome of every rendered page.
+     */
+    private final RenderReport report;
+
+    /**
+     * The Constructor.
+     *
+     * @param filePath   The path to the PDF-document.
+     * @param pageCount  The number of pages of the document.
+     * @param format     The {@link OutputFormat}.
+     * @param resolution The {@link RenderResolution}.
+     */
+    public PDFToPPMPageSource(String filePath, int pageCount, OutputFormat format, RenderResolution resolution) {
+        this(filePath, pageCount, format, resolution, RenderCancellation.NONE);
+    }
+
+    /**
+     * The Constructor.
+     *
+     * @param filePath     The path to the PDF-document.
+     * @param pageCount    The number of pages of the document.
+     * @param format       The {@link OutputFormat}.
+     * @param resolution   The {@link RenderResolution}.
+     * @param cancellation The {@link RenderCancellation} killing the processes when the rendering is cancelled.
+     */
+    public PDFToPPMPageSource(String filePath, int pageCount, OutputFormat format, RenderResolution resolution,
+                              RenderCancellation cancellation) {
+        this(filePath, pageCount, format, resolution, cancellation, null);
+    }
+
+    /**
+     * The Constructor.
+     *
+     * @param filePath     The path to the PDF-document.
+     * @param pageCount    The number of pages of the document.
+     * @param format       The {@link OutputFormat}.
+     * @param resolution   The {@link RenderResolution}.
+     * @param cancellation The {@link RenderCancellation} killing the processes when the rendering is cancelled.
+     * @param fallback     The {@link PageSource} rendering pages pdftoppm keeps failing at or null.
+     */
+    public PDFToPPMPageSource(String filePath, int pageCount, OutputFormat format, RenderResolution resolution,
+                              RenderCancellation cancellation, PageSource fallback) {
+        this.filePath = filePath;
+        this.pageCount = pageCount;
+        this.format = format;
+        this.resolution = resolution;
+        this.cancellation = cancellation;
+        this.fallback = fallback;
+        this.report = new RenderReport(filePath);
+    }
+
+    @Override
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public BufferedImage loadPage(int page) throws IOException {
+        long start = System.currentTimeMillis();
+        IOException failure = null;
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            checkCancelled();
+
+            try {
+                BufferedImage image = new PDFToPPMConverter(page + 1, filePath, new CountDownLatch(1), format, resolution, cancellation).render();
+                report.record(page, attempt == 1 ? PageOutcome.RENDERED : PageOutcome.RETRIED, attempt, System.currentTimeMillis() - start);
+
+                return image;
+            } catch (IOException e) {
+                checkCancelled();
+
+                failure = e;
+                LOG.warning("Attempt " + attempt + " of rendering page " + (page + 1) + " of file " + filePath + " failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while rendering page " + (page + 1) + " of file " + filePath, e);
+            }
+
+            if (attempt < MAX_ATTEMPTS) {
+                try {
+                    Thread.sleep(RETRY_BACKOFF << (attempt - 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while rendering page " + (page + 1) + " of file " + filePath, e);
+                }
+            }
+        }
+
+        if (fallback != null) {
+            try {
+                BufferedImage image = fallback.loadPage(page);
+                report.record(page, PageOutcome.FALLBACK, MAX_ATTEMPTS + 1, System.currentTimeMillis() - start);
+
+                return image;
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+
+        report.record(page, PageOutcome.FAILED, MAX_ATTEMPTS + (fallback != null ? 1 : 0), System.currentTimeMillis() - start);
+        throw new IOException("Could not render page " + (page + 1) + " of file " + filePath, failure);
+    }
+
+    /**
+     * Throws if the rendering has been cancelled.
+     */
+    private void checkCancelled() {
+        if (cancellation.isCancelled()) {
+            throw new CancellationException("Rendering of file " + filePath + " has been cancelled");
+        }
+    }
+
+    /**
+     * Returns the outcome of every page rendered by this source.
+     *
+     * @return The {@link RenderReport}.
+     */
+    public RenderReport getReport() {
+        return report;
+    }
+
+    @Override
+    public void close() {
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+
+    /**
+     * Returns the version of the installed pdftoppm, e.g. for telling apart renderings of different versions.
+     *
+     * @return The first line pdftoppm prints about its version or "unavailable", if it cannot be started.
+     */
+    public static synchronized String getVersion() {
+        if (version == null) {
+            version = queryVersion();
+        }
+
+        return version;
+    }
+
+    /**
+     * Asks pdftoppm for its version.
+     *
+     * @return The first line of the output or "unavailable", if pdftoppm cannot be started.
+     */
+    private static String queryVersion() {
+        try {
+            Process process = new ProcessBuilder("pdftoppm", "-v").redirectErrorStream(true).start();
+
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = output.readLine();
+                return line == null ? "unknown" : line.trim();
+            } finally {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        } catch (IOException e) {
+            LOG.fine("pdftoppm is not available: " + e.getMessage());
+            return "unavailable";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package logic.pdftoppm;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This class converts a contiguous range of pages of a PDF-document to images using a single pdftoppm-process.
+ * The multi-page output of the process is split into the single pages by a {@link PPMStreamDecoder} or a
+ * {@link PNGStreamSplitter}, depending on the {@link OutputFormat}.
+ */
+public class PDFToPPMRangeConverter implements Callable<List<BufferedImage>> {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(PDFToPPMRangeConverter.class.getName());
+
+    /**
+     * Marks a range which continues up to the last page of the document.
+     */
+    public static final int LAST_PAGE = -1;
+
+    /**
+     * The number of the first page to be converted.
+     */
+    private final int firstPage;
+
+    /**
+     * The number of the last page to be converted or {@link #LAST_PAGE}.
+     */
+    private final int lastPage;
+
+    /**
+     * The path of the document to be converted.
+     */
+    private final String filePath;
+
+    /**
+     * The {@link OutputFormat} pdftoppm is asked to write.
+     */
+    private final OutputFormat format;
+
+    /**
+     * The {@link RenderResolution} of the rendered pages.
+     */
+    private final RenderResolution resolution;
+
+    /**
+     * The {@link PageRenderedListener} notified about every finished page or null.
+     */
+    private final PageRenderedListener listener;
+
+    /**
+     * The {@link RenderCancellation} the process is registered at.
+     */
+    private final RenderCancellation cancellation;
+
+    /**
+     * The Constructor.
+     *
+     * @param firstPage  The number of the first page.
+     * @param lastPage   The number of the last page or {@link #LAST_PAGE} for an open range.
+     * @param filePath   The path to the PDF-document.
+     * @param format     The {@link OutputFormat}.
+     * @param resolution The {@link RenderResolution}.
+     */
+    public PDFToPPMRangeConverter(int firstPage, int lastPage, String filePath, OutputFormat format, RenderResolution resolution) {
+        this(firstPage, lastPage, filePath, format, resolution, null);
+    }
+
+    /**
+     * The Constructor.
+     *
+     * @param firstPage  The number of the first page.
+     * @param lastPage   The number of the last page or {@link #LAST_PAGE} for an open range.
+     * @param filePath   The path to the PDF-document.
+     * @param format     The {@link OutputFormat}.
+     * @param resolution The {@link RenderResolution}.
+     * @param listener   The {@link PageRenderedListener} notified about every finished page.
+     */
+    public PDFToPPMRangeConverter(int firstPage, int lastPage, String filePath, OutputFormat format, RenderResolution resolution,
+                                  PageRenderedListener listener) {
+        this(firstPage, lastPage, filePath, format, resolution, listener, RenderCancellation.NONE);
+    }
+
+    /**
+     * The Constructor.
+     *
+     * @param firstPage    The number of the first page.
+     * @param lastPage     The number of the last page or {@link #LAST_PAGE} for an open range.
+     * @param filePath     The path to the PDF-document.
+     * @param format       The {@link OutputFormat}.
+     * @param resolution   The {@link RenderResolution}.
+     * @param listener     The {@link PageRenderedListener} notified about every finished page.
+     * @param cancellation The {@link RenderCancellation} killing the process when the rendering is cancelled.
+     */
+    public PDFToPPMRangeConverter(int firstPage, int lastPage, String filePath, OutputFormat format, RenderResolution resolution,
+                                  PageRenderedListener listener, RenderCancellation cancellation) {
+        this.firstPage = firstPage;
+        this.lastPage = lastPage;
+        this.filePath = filePath;
+        this.format = format;
+        this.resolution = resolution;
+        this.listener = listener;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Splits the pages of a document into contiguous ranges of nearly equal size.
+     * The last range is left open, so pages beyond the expected page count are rendered as well.
+     *
+     * @param pageCount The expected number of pages.
+     * @param chunks    The maximum number of ranges.
+     * @return The ranges as pairs of first and last page.
+     */
+    public static List<int[]> splitIntoRanges(int pageCount, int chunks) {
+        List<int[]> ranges = new ArrayList<>();
+        int chunkCount = Math.max(1, Math.min(chunks, pageCount));
+        int chunkSize = (int) Math.ceil((double) Math.max(pageCount, 1) / chunkCount);
+
+        for (int first = 1; first <= Math.max(pageCount, 1); first += chunkSize) {
+            int last = first + chunkSize - 1;
+            ranges.add(new int[]{first, last >= pageCount ? LAST_PAGE : last});
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Renders the range. Each page has to be finished within {@link ProcessSupervisor#DEFAULT_PAGE_TIMEOUT}, otherwise
+     * the process is killed. The pages delivered until then have been passed to the listener.
+     *
+     * @return The rendered pages.
+     * @throws IOException If pdftoppm failed or timed out.
+     * @throws InterruptedException If interrupted while waiting for pdftoppm.
+     */
+    @Override
+    public List<BufferedImage> call() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(Arrays.asList("pdftoppm", "-f", Integer.toString(firstPage)));
+
+        if (lastPage != LAST_PAGE) {
+            command.addAll(Arrays.asList("-l", Integer.toString(lastPage)));
+        }
+
+        command.addAll(resolution.getArguments());
+
+        if (format.getArgument() != null) {
+            command.add(format.getArgument());
+        }
+
+        command.add(filePath);
+
+        List<BufferedImage> images = new ArrayList<>();
+
+        try (ProcessSupervisor supervisor = ProcessSupervisor.start(command, ProcessSupervisor.DEFAULT_PAGE_TIMEOUT, cancellation)) {
+            BufferedInputStream output = new BufferedInputStream(supervisor.getOutput(), 1 << 16);
+
+            if (format == OutputFormat.PPM) {
+                PPMStreamDecoder decoder = new PPMStreamDecoder(output);
+                BufferedImage image;
+
+                while ((image = decoder.nextImage()) != null) {
+                    pageFinished(images, image);
+                    supervisor.pageFinished();
+                }
+            } else {
+                PNGStreamSplitter splitter = new PNGStreamSplitter(output);
+                byte[] encodedImage;
+
+                while ((encodedImage = splitter.nextImage()) != null) {
+                    pageFinished(images, ImageIO.read(new ByteArrayInputStream(encodedImage)));
+                    supervisor.pageFinished();
+                }
+            }
+
+            supervisor.finish();
+        } catch (IOException e) {
+            if (!cancellation.isCancelled()) {
+                throw new IOException("Rendering pages " + firstPage + " to " + (lastPage == LAST_PAGE ? "end" : lastPage)
+                        + " of file " + filePath + " failed after " + images.size() + " pages", e);
+            }
+        }
+
+        if (cancellation.isCancelled()) {
+            throw new CancellationException("Rendering of file " + filePath + " has been cancelled");
+        }
+
+        return images;
+    }
+
+    /**
+     * Adds a finished page to the rendered images.
+     *
+     * @param images The images rendered so far.
+     * @param image  The finished page.
+     */
+    private void pageFinished(List<BufferedImage> images, BufferedImage image) {
+        images.add(image);
+        int page = firstPage + images.size() - 1;
+
+        LOG.info("Finished rendering page " + page + " of file " + filePath);
+
+        if (listener != null) {
+            listener.pageRendered(page, image);
+        }
+    }
+}
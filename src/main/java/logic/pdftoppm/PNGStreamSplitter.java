@@ -0,0 +1,121 @@
+package logic.pdftoppm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Splits a stream of concatenated PNG-images, as written by pdftoppm for multiple pages, into the single images.
+ * The chunk-structure of each image is walked up to its IEND-chunk, so no image has to be decoded for splitting.
+ */
+public class PNGStreamSplitter {
+
+    /**
+     * The signature every PNG-image starts with.
+     */
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    /**
+     * The type of the last chunk of a PNG-image.
+     */
+    private static final int IEND = ('I' << 24) | ('E' << 16) | ('N' << 8) | 'D';
+
+    /**
+     * The stream containing the concatenated images.
+     */
+    private final DataInputStream in;
+
+    /**
+     * The Constructor.
+     *
+     * @param in The stream containing the concatenated images.
+     */
+    public PNGStreamSplitter(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /**
+     * Reads the next complete PNG-image from the stream.
+     *
+     * @return The encoded image or null, if the stream has ended.
+     * @throws IOException If the stream ends within an image or does not contain PNG-images.
+     */
+    public byte[] nextImage() throws IOException {
+        byte[] signature = new byte[PNG_SIGNATURE.length];
+
+        int read = in.read(signature);
+        if (read <= 0) {
+            return null;
+        }
+
+        in.readFully(signature, read, signature.length - read);
+
+        if (!Arrays.equals(signature, PNG_SIGNATURE)) {
+            throw new IOException("Stream does not contain a PNG-image");
+        }
+
+        ByteArrayOutputStream image = new ByteArrayOutputStream(1 << 20);
+        image.write(signature);
+
+        byte[] buffer = new byte[1 << 16];
+        int type;
+
+        do {
+            int length = in.readInt();
+            type = in.readInt();
+
+            writeInt(image, length);
+            writeInt(image, type);
+
+            // chunk-data followed by the CRC
+            long remaining = (length & 0xffffffffL) + 4;
+
+            while (remaining > 0) {
+                int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+
+                if (n < 0) {
+                    throw new EOFException("Stream ended within a PNG-chunk");
+                }
+
+                image.write(buffer, 0, n);
+                remaining -= n;
+            }
+        } while (type != IEND);
+
+        return image.toByteArray();
+    }
+
+    /**
+     * Writes an int in big-endian byte order.
+     *
+     * @param out   The stream to be written to.
+     * @param value The value.
+     */
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,136 @@
+package logic.pdftoppm;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Decodes a stream of concatenated binary PPM-images (P6), as written by pdftoppm for multiple pages.
+ * The pixels are read straight from the stream into the raster of a preallocated {@link BufferedImage},
+ * so no intermediate copy of an image is created.
+ */
+public class PPMStreamDecoder {
+
+    /**
+     * The stream containing the concatenated images.
+     */
+    private final DataInputStream in;
+
+    /**
+     * The number of bytes decoded since the creation of this decoder.
+     */
+    private long bytesDecoded;
+
+    /**
+     * The Constructor.
+     *
+     * @param in The stream containing the concatenated images, preferably buffered.
+     */
+    public PPMStreamDecoder(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /**
+     * Decodes the next image of the stream.
+     *
+     * @return The image of type {@link BufferedImage#TYPE_3BYTE_BGR} or null, if the stream has ended.
+     * @throws IOException If the stream ends within an image or does not contain binary PPM-images.
+     */
+    public BufferedImage nextImage() throws IOException {
+        int first = in.read();
+
+        if (first < 0) {
+            return null;
+        }
+
+        if (first != 'P' || in.read() != '6') {
+            throw new IOException("Stream does not contain a binary PPM-image");
+        }
+
+        int width = readHeaderValue();
+        int height = readHeaderValue();
+        int maxValue = readHeaderValue();
+
+        if (maxValue > 255) {
+            throw new IOException("16 bit PPM-images are not supported");
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        in.readFully(pixels);
+        bytesDecoded += pixels.length;
+
+        // PPM stores RGB, the raster expects BGR
+        for (int i = 0; i < pixels.length; i += 3) {
+            byte r = pixels[i];
+            pixels[i] = pixels[i + 2];
+            pixels[i + 2] = r;
+        }
+
+        return image;
+    }
+
+    /**
+     * Returns the number of pixel-bytes decoded since the creation of this decoder.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytesDecoded() {
+        return bytesDecoded;
+    }
+
+    /**
+     * Reads a decimal value of the header, skipping preceding whitespace and comments.
+     * The single whitespace terminating the value is consumed as well.
+     *
+     * @return The value.
+     * @throws IOException If the stream ends or the header is malformed.
+     */
+    private int readHeaderValue() throws IOException {
+        int c = in.read();
+
+        while (c == '#' || Character.isWhitespace(c)) {
+            if (c == '#') {
+                while (c != '\n' && c != '\r' && c >= 0) {
+                    c = in.read();
+                }
+            }
+
+            c = in.read();
+        }
+
+        if (c < '0' || c > '9') {
+            throw new IOException("Malformed PPM-header");
+        }
+
+        int value = 0;
+
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            c = in.read();
+        }
+
+        return value;
+    }
+}
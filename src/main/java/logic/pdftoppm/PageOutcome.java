@@ -0,0 +1,44 @@
+package logic.pdftoppm;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The outcome of rendering a single page, see {@link RenderReport}.
+ */
+public enum PageOutcome {
+    /**
+     * Rendered by pdftoppm at the first attempt.
+     */
+    RENDERED,
+
+    /**
+     * Rendered by pdftoppm after at least one failed attempt.
+     */
+    RETRIED,
+
+    /**
+     * Rendered by the fallback-renderer after all attempts of pdftoppm failed.
+     */
+    FALLBACK,
+
+    /**
+     * Not rendered at all.
+     */
+    FAILED
+}
@@ -0,0 +1,36 @@
+package logic.pdftoppm;
+
+import java.awt.image.BufferedImage;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A listener notified about every single page a converter has finished, before the converter itself has finished.
+ */
+@FunctionalInterface
+public interface PageRenderedListener {
+
+    /**
+     * Called once a page has been rendered and decoded.
+     *
+     * @param page  The number of the page, starting at 1.
+     * @param image The rendered page.
+     */
+    void pageRendered(int page, BufferedImage image);
+}
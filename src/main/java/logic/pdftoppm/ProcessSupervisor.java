@@ -0,0 +1,257 @@
+package logic.pdftoppm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Supervises a single pdftoppm-process: its error-output is drained in the background, so a verbose process
+ * cannot block on a full pipe, and it is killed if a page takes longer than the per-page deadline.
+ * The deadline is restarted every time the reader of the output reports a finished page.
+ */
+public class ProcessSupervisor implements AutoCloseable {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(ProcessSupervisor.class.getName());
+
+    /**
+     * The default time in milliseconds a single page may take to be rendered.
+     */
+    public static final long DEFAULT_PAGE_TIMEOUT = 60_000;
+
+    /**
+     * The maximum number of bytes of the error-output kept for reporting.
+     */
+    private static final int ERROR_OUTPUT_LIMIT = 4096;
+
+    /**
+     * Kills processes exceeding their deadline.
+     */
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "render-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The supervised process.
+     */
+    private final Process process;
+
+    /**
+     * A description of the process for logging.
+     */
+    private final String description;
+
+    /**
+     * The time in milliseconds a single page may take.
+     */
+    private final long pageTimeout;
+
+    /**
+     * The {@link RenderCancellation} the process is registered at.
+     */
+    private final RenderCancellation cancellation;
+
+    /**
+     * The last bytes of the error-output.
+     */
+    private final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+
+    /**
+     * The thread draining the error-output.
+     */
+    private final Thread errorDrainer;
+
+    /**
+     * The pending deadline of the current page.
+     */
+    private volatile ScheduledFuture<?> deadline;
+
+    /**
+     * Whether the process has been killed because a page exceeded its deadline.
+     */
+    private volatile boolean timedOut;
+
+    /**
+     * The Constructor.
+     *
+     * @param process      The started process.
+     * @param description  A description of the process for logging.
+     * @param pageTimeout  The time in milliseconds a single page may take.
+     * @param cancellation The {@link RenderCancellation} the process is registered at.
+     */
+    private ProcessSupervisor(Process process, String description, long pageTimeout, RenderCancellation cancellation) {
+        this.process = process;
+        this.description = description;
+        this.pageTimeout = pageTimeout;
+        this.cancellation = cancellation;
+
+        errorDrainer = new Thread(this::drainErrorOutput, "render-stderr");
+        errorDrainer.setDaemon(true);
+        errorDrainer.start();
+
+        cancellation.register(process);
+        pageFinished();
+    }
+
+    /**
+     * Starts and supervises a process.
+     *
+     * @param command      The command.
+     * @param pageTimeout  The time in milliseconds a single page may take.
+     * @param cancellation The {@link RenderCancellation} killing the process when the rendering is cancelled.
+     * @return The {@link ProcessSupervisor}.
+     * @throws IOException If the process cannot be started.
+     */
+    public static ProcessSupervisor start(List<String> command, long pageTimeout, RenderCancellation cancellation) throws IOException {
+        return new ProcessSupervisor(new ProcessBuilder(command).start(), String.join(" ", command), pageTimeout, cancellation);
+    }
+
+    /**
+     * Returns the standard-output of the process, which is to be read by the caller.
+     *
+     * @return The output.
+     */
+    public InputStream getOutput() {
+        return process.getInputStream();
+    }
+
+    /**
+     * Reports a finished page, restarting the deadline for the next one.
+     */
+    public void pageFinished() {
+        ScheduledFuture<?> previous = deadline;
+
+        if (previous != null) {
+            previous.cancel(false);
+        }
+
+        deadline = WATCHDOG.schedule(this::kill, pageTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Kills the process, as its current page exceeded the deadline.
+     */
+    private void kill() {
+        if (process.isAlive()) {
+            timedOut = true;
+            LOG.warning("Killing " + description + " after a page took longer than " + pageTimeout + " ms");
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Waits for the process to exit after its output has been read and checks its result.
+     *
+     * @throws IOException If the process timed out or exited with an error.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void finish() throws IOException, InterruptedException {
+        if (!process.waitFor(pageTimeout, TimeUnit.MILLISECONDS)) {
+            kill();
+        }
+
+        errorDrainer.join(1_000);
+        checkResult();
+
+        if (process.exitValue() != 0) {
+            throw new IOException(description + " exited with " + process.exitValue() + ": " + getErrorOutput());
+        }
+
+        String errors = getErrorOutput();
+        if (!errors.isEmpty()) {
+            LOG.fine(description + " reported: " + errors);
+        }
+    }
+
+    /**
+     * Throws if the process has been killed, e.g. after an error while reading its output.
+     *
+     * @throws IOException If the process timed out.
+     */
+    public void checkResult() throws IOException {
+        if (timedOut) {
+            throw new IOException(description + " timed out: " + getErrorOutput());
+        }
+    }
+
+    /**
+     * Returns the last bytes written to the error-output.
+     *
+     * @return The error-output.
+     */
+    public String getErrorOutput() {
+        synchronized (errorOutput) {
+            return new String(errorOutput.toByteArray(), StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    /**
+     * Drains the error-output, keeping only its last bytes.
+     */
+    private void drainErrorOutput() {
+        byte[] buffer = new byte[1024];
+
+        try (InputStream err = process.getErrorStream()) {
+            int n;
+
+            while ((n = err.read(buffer)) >= 0) {
+                synchronized (errorOutput) {
+                    if (errorOutput.size() + n > ERROR_OUTPUT_LIMIT) {
+                        byte[] kept = errorOutput.toByteArray();
+                        int keep = Math.max(0, ERROR_OUTPUT_LIMIT - n);
+                        errorOutput.reset();
+                        errorOutput.write(kept, kept.length - Math.min(keep, kept.length), Math.min(keep, kept.length));
+                    }
+
+                    errorOutput.write(buffer, 0, Math.min(n, ERROR_OUTPUT_LIMIT));
+                }
+            }
+        } catch (IOException e) {
+            // the process has been destroyed
+        }
+    }
+
+    /**
+     * Stops supervising, killing the process if it is still running.
+     */
+    @Override
+    public void close() {
+        ScheduledFuture<?> pending = deadline;
+
+        if (pending != null) {
+            pending.cancel(false);
+        }
+
+        cancellation.unregister(process);
+        process.destroy();
+    }
+}
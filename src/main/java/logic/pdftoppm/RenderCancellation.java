@@ -0,0 +1,141 @@
+package logic.pdftoppm;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Allows cancelling the rendering of a document, killing the pdftoppm-processes still running for it and
+ * discarding the jobs not started yet.
+ */
+public class RenderCancellation {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(RenderCancellation.class.getName());
+
+    /**
+     * A cancellation which is never cancelled.
+     */
+    public static final RenderCancellation NONE = new RenderCancellation();
+
+    /**
+     * The processes currently rendering for the document.
+     */
+    private final Set<Process> processes = new HashSet<>();
+
+    /**
+     * The actions run upon cancellation.
+     */
+    private final List<Runnable> cancelHandlers = new ArrayList<>();
+
+    /**
+     * Whether the rendering has been cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Registers a started process, destroying it right away if the rendering has been cancelled already.
+     *
+     * @param process The process.
+     */
+    public void register(Process process) {
+        synchronized (this) {
+            if (!cancelled) {
+                if (this != NONE) {
+                    processes.add(process);
+                }
+                return;
+            }
+        }
+
+        process.destroyForcibly();
+    }
+
+    /**
+     * Unregisters a finished process.
+     *
+     * @param process The process.
+     */
+    public synchronized void unregister(Process process) {
+        processes.remove(process);
+    }
+
+    /**
+     * Adds an action run upon cancellation, e.g. discarding a queued job. It is run right away if the rendering
+     * has been cancelled already.
+     *
+     * @param handler The action.
+     */
+    public void onCancel(Runnable handler) {
+        synchronized (this) {
+            if (!cancelled) {
+                if (this != NONE) {
+                    cancelHandlers.add(handler);
+                }
+                return;
+            }
+        }
+
+        handler.run();
+    }
+
+    /**
+     * Cancels the rendering, killing all registered processes and running all cancel-handlers.
+     */
+    public void cancel() {
+        if (this == NONE) {
+            throw new UnsupportedOperationException("This cancellation cannot be cancelled");
+        }
+
+        List<Process> running;
+        List<Runnable> handlers;
+
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+
+            cancelled = true;
+            running = new ArrayList<>(processes);
+            handlers = new ArrayList<>(cancelHandlers);
+            processes.clear();
+            cancelHandlers.clear();
+        }
+
+        LOG.info("Cancelling rendering, killing " + running.size() + " processes");
+
+        running.forEach(Process::destroyForcibly);
+        handlers.forEach(Runnable::run);
+    }
+
+    /**
+     * Returns whether the rendering has been cancelled.
+     *
+     * @return whether it has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,34 @@
+package logic.pdftoppm;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The ways pdftoppm-processes can be used for rendering a whole document.
+ */
+public enum RenderMode {
+    /**
+     * One pdftoppm-process per page, see {@link PDFToPPMConverter}.
+     */
+    PER_PAGE,
+
+    /**
+     * One pdftoppm-process per contiguous range of pages, see {@link PDFToPPMRangeConverter}.
+     */
+    BATCHED
+}
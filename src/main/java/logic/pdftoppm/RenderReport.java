@@ -0,0 +1,97 @@
+package logic.pdftoppm;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Collects the {@link PageOutcome} of every page rendered for a document.
+ */
+public class RenderReport {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(RenderReport.class.getName());
+
+    /**
+     * The path of the document.
+     */
+    private final String filePath;
+
+    /**
+     * The outcomes by their page-number, starting at 0.
+     */
+    private final Map<Integer, PageOutcome> outcomes = new ConcurrentHashMap<>();
+
+    /**
+     * The Constructor.
+     *
+     * @param filePath The path of the document.
+     */
+    public RenderReport(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Records the outcome of a page, replacing an earlier one.
+     *
+     * @param page     The number of the page, starting at 0.
+     * @param outcome  The {@link PageOutcome}.
+     * @param attempts The number of attempts taken.
+     * @param millis   The time taken by all attempts.
+     */
+    public void record(int page, PageOutcome outcome, int attempts, long millis) {
+        outcomes.put(page, outcome);
+
+        LOG.log(outcome == PageOutcome.RENDERED ? Level.FINE : Level.WARNING, "Page " + (page + 1) + " of file " + filePath
+                + ": " + outcome + " after " + attempts + " attempts in " + millis + " ms");
+    }
+
+    /**
+     * Returns the outcome of a page.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return The {@link PageOutcome} or null, if the page has not been rendered yet.
+     */
+    public PageOutcome getOutcome(int page) {
+        return outcomes.get(page);
+    }
+
+    /**
+     * Returns the number of pages of each outcome.
+     *
+     * @return The counts.
+     */
+    public Map<PageOutcome, Integer> getCounts() {
+        Map<PageOutcome, Integer> counts = new EnumMap<>(PageOutcome.class);
+        outcomes.values().forEach(outcome -> counts.merge(outcome, 1, Integer::sum));
+
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderReport{" + filePath + ", " + getCounts() + "}";
+    }
+}
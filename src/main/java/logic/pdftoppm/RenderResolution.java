@@ -0,0 +1,193 @@
+package logic.pdftoppm;
+
+import logic.NoGraphicsDevice;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The resolution pdftoppm is asked to render pages at. Either a fixed DPI-value, used when the size of the panels
+ * displaying the pages is unknown, or a box in pixels each page is scaled to fit in.
+ */
+public class RenderResolution {
+
+    /**
+     * The DPI-value used when the panel-size is unknown.
+     */
+    public static final int DEFAULT_DPI = 220;
+
+    /**
+     * The fallback-resolution.
+     */
+    public static final RenderResolution DEFAULT = dpi(DEFAULT_DPI);
+
+    /**
+     * Marks an unused dimension, which is then determined by the aspect-ratio of the page.
+     */
+    private static final int AUTO = -1;
+
+    /**
+     * The DPI-value or 0, if a box is used.
+     */
+    private final int dpi;
+
+    /**
+     * The width of the box in pixels.
+     */
+    private final int width;
+
+    /**
+     * The height of the box in pixels.
+     */
+    private final int height;
+
+    /**
+     * The Constructor.
+     *
+     * @param dpi    The DPI-value or 0.
+     * @param width  The width of the box.
+     * @param height The height of the box.
+     */
+    private RenderResolution(int dpi, int width, int height) {
+        this.dpi = dpi;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates a resolution of a fixed DPI-value.
+     *
+     * @param dpi The DPI-value.
+     * @return The {@link RenderResolution}.
+     */
+    public static RenderResolution dpi(int dpi) {
+        return new RenderResolution(dpi, 0, 0);
+    }
+
+    /**
+     * Creates a resolution scaling every page to fit into a box.
+     *
+     * @param width  The width of the box in pixels.
+     * @param height The height of the box in pixels.
+     * @return The {@link RenderResolution}.
+     */
+    public static RenderResolution fitInto(int width, int height) {
+        return new RenderResolution(0, width, height);
+    }
+
+    /**
+     * Creates a resolution fitting the largest of the given screens, each of which is assumed to display the pages
+     * in full-screen. Falls back to {@link #DEFAULT} if no screen is known.
+     *
+     * @param screens The screens the pages are displayed on.
+     * @return The {@link RenderResolution}.
+     */
+    public static RenderResolution forScreens(GraphicsDevice... screens) {
+        int maxWidth = 0;
+        int maxHeight = 0;
+
+        for (GraphicsDevice screen : screens) {
+            if (screen == null || screen instanceof NoGraphicsDevice || screen.getDisplayMode() == null) {
+                continue;
+            }
+
+            maxWidth = Math.max(maxWidth, screen.getDisplayMode().getWidth());
+            maxHeight = Math.max(maxHeight, screen.getDisplayMode().getHeight());
+        }
+
+        if (maxWidth <= 0 || maxHeight <= 0) {
+            return DEFAULT;
+        }
+
+        return fitInto(maxWidth, maxHeight);
+    }
+
+    /**
+     * Resolves the box to the single dimension limiting a page of the given size, as pdftoppm would otherwise
+     * distort pages of a different aspect-ratio than the box.
+     *
+     * @param pageWidth  The width of the page in any unit.
+     * @param pageHeight The height of the page in the same unit.
+     * @return The resolved {@link RenderResolution}, or this one if it uses a DPI-value.
+     */
+    public RenderResolution fittedTo(double pageWidth, double pageHeight) {
+        if (isDpi() || pageWidth <= 0 || pageHeight <= 0) {
+            return this;
+        }
+
+        double boxRatio = (double) height / width;
+        double pageRatio = pageHeight / pageWidth;
+
+        if (boxRatio < pageRatio) {
+            return new RenderResolution(0, AUTO, height);
+        } else {
+            return new RenderResolution(0, width, AUTO);
+        }
+    }
+
+    /**
+     * Returns the zoom-factor rendering a page of the given size at this resolution, as used by in-process renderers.
+     *
+     * @param pageWidth  The width of the page in points.
+     * @param pageHeight The height of the page in points.
+     * @return The zoom-factor relative to 72 DPI.
+     */
+    public float getZoom(double pageWidth, double pageHeight) {
+        if (isDpi() || pageWidth <= 0 || pageHeight <= 0) {
+            return (isDpi() ? dpi : DEFAULT_DPI) / 72f;
+        }
+
+        double zoomX = width == AUTO ? Double.MAX_VALUE : width / pageWidth;
+        double zoomY = height == AUTO ? Double.MAX_VALUE : height / pageHeight;
+
+        return (float) Math.min(zoomX, zoomY);
+    }
+
+    /**
+     * Returns whether this resolution uses a DPI-value.
+     *
+     * @return whether a DPI-value is used
+     */
+    public boolean isDpi() {
+        return dpi > 0;
+    }
+
+    /**
+     * Returns the command-line-arguments of pdftoppm selecting this resolution.
+     *
+     * @return The arguments.
+     */
+    public List<String> getArguments() {
+        if (isDpi()) {
+            return Arrays.asList("-r", Integer.toString(dpi));
+        } else if (width == AUTO || height == AUTO) {
+            return Arrays.asList("-scale-to-x", Integer.toString(width), "-scale-to-y", Integer.toString(height));
+        } else {
+            return Arrays.asList("-scale-to", Integer.toString(Math.max(width, height)));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isDpi() ? dpi + " DPI" : width + "x" + height + " px";
+    }
+}
@@ -0,0 +1,300 @@
+package logic.pdftoppm;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A single, long-lived scheduler for render-jobs shared by every renderer of this program.
+ * The amount of concurrently running jobs is bounded by the number of cores as well as the memory available to the JVM.
+ * Queued jobs are executed by their priority, jobs of the same priority in the order of their submission.
+ */
+public class RenderScheduler {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(RenderScheduler.class.getName());
+
+    /**
+     * The priority of jobs whose result is about to be displayed.
+     */
+    public static final int PRIORITY_VISIBLE = 0;
+
+    /**
+     * The priority of jobs whose result is likely to be displayed soon.
+     */
+    public static final int PRIORITY_PREFETCH = 10;
+
+    /**
+     * The priority of all other jobs.
+     */
+    public static final int PRIORITY_BACKGROUND = 20;
+
+    /**
+     * The estimated amount of heap a single running job needs, i.e. a page rendered at 220 DPI plus its buffers.
+     */
+    private static final long ESTIMATED_JOB_MEMORY = 64L << 20;
+
+    /**
+     * The time-window in milliseconds the throughput is measured over.
+     */
+    private static final long THROUGHPUT_WINDOW = 10_000;
+
+    /**
+     * The single instance.
+     */
+    private static RenderScheduler instance;
+
+    /**
+     * The executor running the jobs.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Keeps the order of submission among jobs of the same priority.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The number of jobs finished since startup.
+     */
+    private final AtomicLong completedJobs = new AtomicLong();
+
+    /**
+     * The times jobs were finished at within the last {@link #THROUGHPUT_WINDOW}.
+     */
+    private final ArrayDeque<Long> completionTimes = new ArrayDeque<>();
+
+    /**
+     * The Constructor.
+     *
+     * @param parallelism The maximum number of concurrently running jobs.
+     */
+    private RenderScheduler(int parallelism) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "render-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        LOG.info("Started render-scheduler with a parallelism of " + parallelism);
+    }
+
+    /**
+     * Returns the scheduler, creating it upon first use.
+     *
+     * @return The {@link RenderScheduler}.
+     */
+    public static synchronized RenderScheduler getInstance() {
+        if (instance == null) {
+            instance = new RenderScheduler(computeParallelism());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Computes the number of jobs which can run concurrently without exceeding the cores or the heap.
+     *
+     * @return The parallelism, at least 1.
+     */
+    private static int computeParallelism() {
+        Runtime runtime = Runtime.getRuntime();
+        long availableMemory = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+
+        long memoryBound = Math.max(1, availableMemory / ESTIMATED_JOB_MEMORY);
+
+        return (int) Math.min(runtime.availableProcessors(), memoryBound);
+    }
+
+    /**
+     * Queues a job.
+     *
+     * @param task     The job.
+     * @param priority The priority of the job, lower values are executed first.
+     * @param <T>      The type of the job's result.
+     * @return A future completed with the job's result.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, int priority) {
+        RenderJob<T> job = new RenderJob<>(task, priority, sequence.getAndIncrement());
+        executor.execute(job);
+
+        return job.result;
+    }
+
+    /**
+     * Returns the maximum number of concurrently running jobs.
+     *
+     * @return The parallelism.
+     */
+    public int getParallelism() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the number of jobs waiting for execution.
+     *
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of currently running jobs.
+     *
+     * @return The number of active jobs.
+     */
+    public int getActiveJobs() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of jobs finished since startup.
+     *
+     * @return The number of completed jobs.
+     */
+    public long getCompletedJobs() {
+        return completedJobs.get();
+    }
+
+    /**
+     * Returns the number of jobs finished per second, measured over the last {@link #THROUGHPUT_WINDOW} milliseconds.
+     *
+     * @return The throughput in jobs per second.
+     */
+    public double getThroughput() {
+        synchronized (completionTimes) {
+            pruneCompletionTimes(System.currentTimeMillis());
+
+            return completionTimes.size() / (THROUGHPUT_WINDOW / 1_000.0);
+        }
+    }
+
+    /**
+     * Removes completion-times which are older than the throughput-window.
+     *
+     * @param now The current time.
+     */
+    private void pruneCompletionTimes(long now) {
+        while (!completionTimes.isEmpty() && completionTimes.peekFirst() < now - THROUGHPUT_WINDOW) {
+            completionTimes.pollFirst();
+        }
+    }
+
+    /**
+     * Records a finished job.
+     */
+    private void jobCompleted() {
+        completedJobs.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+
+        synchronized (completionTimes) {
+            completionTimes.addLast(now);
+            pruneCompletionTimes(now);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RenderScheduler[parallelism=%d, active=%d, queued=%d, completed=%d, throughput=%.2f/s]",
+                getParallelism(), getActiveJobs(), getQueueDepth(), getCompletedJobs(), getThroughput());
+    }
+
+
+    /**
+     * A queued job, ordered by its priority and its sequence-number.
+     *
+     * @param <T> The type of the job's result.
+     */
+    private class RenderJob<T> implements Runnable, Comparable<RenderJob<?>> {
+        /**
+         * The task to be executed.
+         */
+        private final Callable<T> task;
+
+        /**
+         * The priority.
+         */
+        private final int priority;
+
+        /**
+         * The sequence-number.
+         */
+        private final long sequenceNumber;
+
+        /**
+         * The future receiving the result of the task.
+         */
+        private final CompletableFuture<T> result;
+
+        /**
+         * The Constructor.
+         *
+         * @param task           The task.
+         * @param priority       The priority.
+         * @param sequenceNumber The sequence-number.
+         */
+        RenderJob(Callable<T> task, int priority, long sequenceNumber) {
+            this.task = task;
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+            this.result = new CompletableFuture<>();
+        }
+
+        @Override
+        public void run() {
+            // the job might have been cancelled while waiting in the queue
+            if (result.isDone()) {
+                return;
+            }
+
+            try {
+                result.complete(task.call());
+            } catch (Exception | Error e) {
+                result.completeExceptionally(e);
+            } finally {
+                jobCompleted();
+            }
+        }
+
+        @Override
+        public int compareTo(RenderJob<?> o) {
+            if (priority != o.priority) {
+                return Integer.compare(priority, o.priority);
+            }
+
+            return Long.compare(sequenceNumber, o.sequenceNumber);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package logic.pktool;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Describes the versioned, random-access .pktool-format.
+ * <p>
+ * A file starts with a fixed-size header ({@link #MAGIC}, {@link #VERSION}, the number of pages and reserved flags),
+ * followed by a table holding one entry per page (offset and length of the page-blob, width, height and
+ * {@link PageCodec} of the page). The page-blobs follow the table, each compressed independently, so any page can be
+ * read and decoded without touching the others. All numbers are stored in big-endian byte order.
+ * <p>
+ * If {@link #FLAG_FINGERPRINTS} is set, the page-table is followed by a {@link #FINGERPRINT_SIZE}-byte fingerprint of
+ * the PDF-content of every page, allowing unchanged pages to be reused when a modified PDF is rendered.
+ * <p>
+ * Since version 3, a page whose codec is combined with {@link #CODEC_DELTA} only stores the tiles which changed
+ * relative to the previous page. Every {@link #KEYFRAME_INTERVAL}th page is stored completely, bounding the number of
+ * pages which have to be decoded to reach any page.
+ * <p>
+ * Since version 4, {@link #FLAG_PROFILES} marks files additionally holding the pages scaled to fit into the panels of
+ * one or more display-profiles, e.g. 1920x1080. The profile-table follows the fingerprints: the number of profiles,
+ * the width and height of every profile and a page-table per profile, whose page-blobs are encoded the same way.
+ * <p>
+ * Files written before this format are GZIP-compressed serialized {@link javax.swing.ImageIcon}-lists and are
+ * recognized by not starting with {@link #MAGIC}.
+ */
+public final class DeckFormat {
+
+    /**
+     * The first four bytes of every file, "PKTL".
+     */
+    public static final int MAGIC = 0x504B544C;
+
+    /**
+     * The current version of the format.
+     */
+    public static final int VERSION = 4;
+
+    /**
+     * The oldest version of the format which can still be read.
+     */
+    public static final int MIN_VERSION = 2;
+
+    /**
+     * The size of the header in bytes: magic, version, page-count and flags.
+     */
+    public static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of a page-table entry in bytes: offset (long), length, width, height and codec (int).
+     */
+    public static final int ENTRY_SIZE = 24;
+
+    /**
+     * The flag marking files containing a fingerprint of every page.
+     */
+    public static final int FLAG_FINGERPRINTS = 1;
+
+    /**
+     * The size of a fingerprint in bytes.
+     */
+    public static final int FINGERPRINT_SIZE = 32;
+
+    /**
+     * The flag marking files containing the pages scaled to display-profiles.
+     */
+    public static final int FLAG_PROFILES = 2;
+
+    /**
+     * The maximum number of display-profiles of a file.
+     */
+    public static final int MAX_PROFILES = 16;
+
+    /**
+     * The bit combined with the {@link PageCodec}-id of a page which is stored as a delta to the previous page.
+     */
+    public static final int CODEC_DELTA = 0x100;
+
+    /**
+     * The maximum distance between two completely stored pages.
+     */
+    public static final int KEYFRAME_INTERVAL = 16;
+
+    /**
+     * Utility class.
+     */
+    private DeckFormat() {
+    }
+
+    /**
+     * Returns the offset of the first page-blob of a file without display-profiles.
+     *
+     * @param pageCount The number of pages.
+     * @param flags     The flags of the file.
+     * @return The offset in bytes.
+     */
+    public static long getDataOffset(int pageCount, int flags) {
+        return getDataOffset(pageCount, flags, 0);
+    }
+
+    /**
+     * Returns the offset of the first page-blob.
+     *
+     * @param pageCount    The number of pages.
+     * @param flags        The flags of the file.
+     * @param profileCount The number of display-profiles.
+     * @return The offset in bytes.
+     */
+    public static long getDataOffset(int pageCount, int flags, int profileCount) {
+        long profiles = (flags & FLAG_PROFILES) != 0 ? 4 + profileCount * (8 + (long) pageCount * ENTRY_SIZE) : 0;
+
+        return getProfileTableOffset(pageCount, flags) + profiles;
+    }
+
+    /**
+     * Returns the offset of the profile-table, only present if {@link #FLAG_PROFILES} is set.
+     *
+     * @param pageCount The number of pages.
+     * @param flags     The flags of the file.
+     * @return The offset in bytes.
+     */
+    public static long getProfileTableOffset(int pageCount, int flags) {
+        long fingerprints = (flags & FLAG_FINGERPRINTS) != 0 ? (long) pageCount * FINGERPRINT_SIZE : 0;
+
+        return HEADER_SIZE + (long) pageCount * ENTRY_SIZE + fingerprints;
+    }
+
+    /**
+     * Checks whether a file starts with {@link #MAGIC}, i.e. is not a legacy file.
+     *
+     * @param file The file.
+     * @return Whether the file is in the random-access format.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isDeckFile(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= HEADER_SIZE && in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Returns the pixels of an image as BGR-triples in row-major order. Images of type
+     * {@link BufferedImage#TYPE_3BYTE_BGR} are not copied, all others are converted first.
+     *
+     * @param image The image.
+     * @return The pixels.
+     */
+    public static byte[] getPixels(BufferedImage image) {
+        int size = image.getWidth() * image.getHeight() * 3;
+
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR && image.getRaster().getDataBuffer() instanceof DataBufferByte) {
+            byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+            if (pixels.length == size) {
+                return pixels;
+            }
+        }
+
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        return ((DataBufferByte) converted.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Creates an image of type {@link BufferedImage#TYPE_3BYTE_BGR} whose pixels are to be filled by the caller.
+     *
+     * @param width  The width.
+     * @param height The height.
+     * @return The image.
+     */
+    public static BufferedImage createImage(int width, int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+    }
+
+    /**
+     * Returns the pixel-array of an image created by {@link #createImage(int, int)}.
+     *
+     * @param image The image.
+     * @return The BGR-pixels backing the image.
+     */
+    public static byte[] getRaster(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+}
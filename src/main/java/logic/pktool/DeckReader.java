@@ -0,0 +1,548 @@
+package logic.pktool;
+
+import logic.PageSource;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Reads a presentation in the {@link DeckFormat}. The file is memory-mapped on opening and only the header and the
+ * page-table are read, so opening takes the same time regardless of the number of pages. Every page is decoded on
+ * demand from the mapped bytes, which are left to the page-cache of the OS instead of the heap. Files too large to be
+ * mapped at once are read by positional reads instead. The reader can be used from multiple threads.
+ * <p>
+ * Closing the reader unmaps the file right away instead of leaving it to the garbage-collector, as a mapped file can
+ * neither be replaced nor deleted on Windows.
+ * <p>
+ * The pages scaled to the display-profiles of a file are read through {@link #getProfileSource(int)}. Like in the
+ * {@link DeckWriter}, the entries of all page-tables are addressed by slots, the full resolution coming first.
+ */
+public class DeckReader implements PageSource {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(DeckReader.class.getName());
+
+    /**
+     * The file read from.
+     */
+    private final File file;
+
+    /**
+     * The mapped file or null, if the file is read through {@link #channel} or the reader has been closed.
+     * Guarded by {@link #mappingLock}.
+     */
+    private ByteBuffer mapped;
+
+    /**
+     * Held for reading while bytes are copied from the mapping and for writing while it is unmapped, so no read
+     * touches a released mapping.
+     */
+    private final ReadWriteLock mappingLock = new ReentrantReadWriteLock();
+
+    /**
+     * The channel of a file too large to be mapped or null, if the file is mapped.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of pages.
+     */
+    private final int pageCount;
+
+    /**
+     * The boxes of the display-profiles the pages are additionally stored for.
+     */
+    private final List<Dimension> profiles = new ArrayList<>();
+
+    /**
+     * The offsets of the page-blobs by slot.
+     */
+    private final long[] offsets;
+
+    /**
+     * The lengths of the page-blobs.
+     */
+    private final int[] lengths;
+
+    /**
+     * The widths of the pages.
+     */
+    private final int[] widths;
+
+    /**
+     * The heights of the pages.
+     */
+    private final int[] heights;
+
+    /**
+     * The codecs of the page-blobs.
+     */
+    private final int[] codecs;
+
+    /**
+     * The fingerprints of the pages or null, if the file does not contain fingerprints.
+     */
+    private final byte[][] fingerprints;
+
+    /**
+     * The last decoded page of every resolution which is followed by a delta-page, so stepping through a build-up
+     * slide decodes every step once.
+     */
+    private final AtomicReferenceArray<SoftReference<DecodedPage>> lastDecoded;
+
+    /**
+     * Opens a file and reads its page-table.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be read or is not in the {@link DeckFormat}.
+     */
+    public DeckReader(File file) throws IOException {
+        this.file = file;
+
+        FileChannel opened = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        long size = opened.size();
+
+        try {
+            if (size <= Integer.MAX_VALUE) {
+                // the mapping stays valid after closing the channel until it is unmapped by closing the reader
+                mapped = opened.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                opened.close();
+                opened = null;
+            }
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+
+        this.channel = opened;
+
+        try {
+            ByteBuffer header = readFully(0, DeckFormat.HEADER_SIZE);
+
+            if (header.getInt() != DeckFormat.MAGIC) {
+                throw new IOException(file + " is not a pktool-file");
+            }
+
+            int version = header.getInt();
+            if (version < DeckFormat.MIN_VERSION || version > DeckFormat.VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+
+            pageCount = header.getInt();
+            int flags = header.getInt();
+            if (pageCount < 0 || DeckFormat.getDataOffset(pageCount, flags) > size) {
+                throw new IOException(file + " has a corrupted page-table");
+            }
+
+            long profileTable = DeckFormat.getProfileTableOffset(pageCount, flags);
+            int profileCount = 0;
+
+            if ((flags & DeckFormat.FLAG_PROFILES) != 0) {
+                profileCount = readFully(profileTable, 4).getInt();
+
+                if (profileCount < 0 || profileCount > DeckFormat.MAX_PROFILES
+                        || DeckFormat.getDataOffset(pageCount, flags, profileCount) > size) {
+                    throw new IOException(file + " has a corrupted profile-table");
+                }
+            }
+
+            int slots = pageCount * (1 + profileCount);
+            lastDecoded = new AtomicReferenceArray<>(1 + profileCount);
+
+            offsets = new long[slots];
+            lengths = new int[slots];
+            widths = new int[slots];
+            heights = new int[slots];
+            codecs = new int[slots];
+
+            readEntries(readFully(DeckFormat.HEADER_SIZE, pageCount * DeckFormat.ENTRY_SIZE), 0, size);
+
+            for (int profile = 0; profile < profileCount; profile++) {
+                long offset = profileTable + 4 + profile * (8 + (long) pageCount * DeckFormat.ENTRY_SIZE);
+                ByteBuffer table = readFully(offset, 8 + pageCount * DeckFormat.ENTRY_SIZE);
+
+                profiles.add(new Dimension(table.getInt(), table.getInt()));
+                readEntries(table, (profile + 1) * pageCount, size);
+            }
+
+            if ((flags & DeckFormat.FLAG_FINGERPRINTS) != 0) {
+                fingerprints = new byte[pageCount][DeckFormat.FINGERPRINT_SIZE];
+                ByteBuffer fingerprintTable = readFully(DeckFormat.HEADER_SIZE + (long) pageCount * DeckFormat.ENTRY_SIZE,
+                        pageCount * DeckFormat.FINGERPRINT_SIZE);
+
+                for (byte[] fingerprint : fingerprints) {
+                    fingerprintTable.get(fingerprint);
+                }
+            } else {
+                fingerprints = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the page-table entries of one resolution.
+     *
+     * @param table     The buffer positioned at the first entry.
+     * @param firstSlot The slot of the first page.
+     * @param size      The size of the file.
+     * @throws IOException If an entry points beyond the end of the file.
+     */
+    private void readEntries(ByteBuffer table, int firstSlot, long size) throws IOException {
+        for (int slot = firstSlot; slot < firstSlot + pageCount; slot++) {
+            offsets[slot] = table.getLong();
+            lengths[slot] = table.getInt();
+            widths[slot] = table.getInt();
+            heights[slot] = table.getInt();
+            codecs[slot] = table.getInt();
+
+            if (offsets[slot] < 0 || lengths[slot] < 0 || offsets[slot] + lengths[slot] > size) {
+                throw new IOException(file + " is truncated at page " + (slot % pageCount + 1));
+            }
+        }
+    }
+
+    @Override
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Returns the boxes of the display-profiles the pages are additionally stored for.
+     *
+     * @return The boxes, empty if the file does not contain display-profiles.
+     */
+    public List<Dimension> getProfiles() {
+        List<Dimension> boxes = new ArrayList<>();
+        profiles.forEach(profile -> boxes.add(new Dimension(profile)));
+        return boxes;
+    }
+
+    /**
+     * Returns a source of the pages scaled to fit into the box of a display-profile. Closing the source does not close
+     * this reader.
+     *
+     * @param profile The index of the profile in {@link #getProfiles()}.
+     * @return The {@link PageSource}.
+     */
+    public PageSource getProfileSource(int profile) {
+        if (profile < 0 || profile >= profiles.size()) {
+            throw new IndexOutOfBoundsException("Display-profile " + profile + " of " + profiles.size());
+        }
+
+        return new PageSource() {
+            @Override
+            public int getPageCount() {
+                return pageCount;
+            }
+
+            @Override
+            public BufferedImage loadPage(int page) throws IOException {
+                return loadSlot((profile + 1) * pageCount + page);
+            }
+
+            @Override
+            public String toString() {
+                return file.getName() + " at " + profiles.get(profile).width + "x" + profiles.get(profile).height;
+            }
+        };
+    }
+
+    /**
+     * Returns the fingerprint of the PDF-content a page has been rendered from.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return The fingerprint or null, if the file does not contain fingerprints.
+     */
+    public byte[] getFingerprint(int page) {
+        return fingerprints == null ? null : fingerprints[page];
+    }
+
+    /**
+     * Returns the fingerprints of the PDF-content of all pages.
+     *
+     * @return The fingerprints indexed by page or null, if the file does not contain fingerprints.
+     */
+    public byte[][] getFingerprints() {
+        return fingerprints == null ? null : fingerprints.clone();
+    }
+
+    /**
+     * Returns the number of bytes a page takes in the file.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return The length of the page-blob.
+     */
+    public int getEncodedSize(int page) {
+        return lengths[page];
+    }
+
+    /**
+     * Reads and decodes a page.
+     *
+     * @param page The number of the page, starting at 0.
+     * @return The page as an image of type {@link BufferedImage#TYPE_3BYTE_BGR}.
+     * @throws IOException If the page cannot be read or decoded.
+     */
+    @Override
+    public BufferedImage loadPage(int page) throws IOException {
+        if (page < 0 || page >= pageCount) {
+            throw new IOException("Page " + (page + 1) + " of " + file + " does not exist");
+        }
+
+        return loadSlot(page);
+    }
+
+    /**
+     * Reads and decodes a page of any resolution.
+     *
+     * @param slot The slot of the page.
+     * @return The page as an image of type {@link BufferedImage#TYPE_3BYTE_BGR}.
+     * @throws IOException If the page cannot be read or decoded.
+     */
+    private BufferedImage loadSlot(int slot) throws IOException {
+        BufferedImage image = DeckFormat.createImage(widths[slot], heights[slot]);
+        byte[] pixels = DeckFormat.getRaster(image);
+
+        // a delta-page is decoded starting at the nearest keyframe or at the last decoded page, if it precedes the page
+        int resolution = slot / pageCount;
+        SoftReference<DecodedPage> reference = lastDecoded.get(resolution);
+        DecodedPage cached = reference != null ? reference.get() : null;
+        int first = slot;
+
+        while (isDelta(first) && (cached == null || cached.slot != first - 1)) {
+            checkReference(first--);
+        }
+
+        if (isDelta(first)) {
+            checkReference(first);
+            System.arraycopy(cached.pixels, 0, pixels, 0, pixels.length);
+        }
+
+        for (int s = first; s <= slot; s++) {
+            decodeBlob(s, pixels);
+        }
+
+        if ((slot + 1) % pageCount != 0 && isDelta(slot + 1)) {
+            lastDecoded.set(resolution, new SoftReference<>(new DecodedPage(slot, pixels.clone())));
+        }
+
+        return image;
+    }
+
+    /**
+     * Returns whether a page is stored as a delta to its previous page.
+     *
+     * @param slot The slot of the page.
+     * @return Whether the page is a delta-page.
+     */
+    private boolean isDelta(int slot) {
+        return (codecs[slot] & DeckFormat.CODEC_DELTA) != 0;
+    }
+
+    /**
+     * Checks that a delta-page has a previous page of the same size and resolution.
+     *
+     * @param slot The slot of the delta-page.
+     * @throws IOException If the page cannot be decoded.
+     */
+    private void checkReference(int slot) throws IOException {
+        if (slot % pageCount == 0 || widths[slot - 1] != widths[slot] || heights[slot - 1] != heights[slot]) {
+            throw new IOException("Page " + (slot % pageCount + 1) + " of " + file + " is a delta to a page of different size");
+        }
+    }
+
+    /**
+     * Decodes a page-blob, either completely or, for a delta-page, onto the pixels of the previous page.
+     *
+     * @param slot   The slot of the page.
+     * @param pixels The BGR-pixels of the page, holding the previous page for a delta-page.
+     * @throws IOException If the page cannot be read or decoded.
+     */
+    private void decodeBlob(int slot, byte[] pixels) throws IOException {
+        PageCodec codec = PageCodec.forId(codecs[slot] & ~DeckFormat.CODEC_DELTA);
+        ByteBuffer blob = readFully(offsets[slot], lengths[slot]);
+
+        try {
+            if (isDelta(slot)) {
+                TileDelta.apply(blob.array(), pixels, widths[slot], heights[slot], codec);
+            } else {
+                codec.decode(blob.array(), pixels);
+            }
+        } catch (IOException e) {
+            throw new IOException("Page " + (slot % pageCount + 1) + " of " + file + " is corrupted", e);
+        }
+    }
+
+    /**
+     * Copies a range of the file from the mapping or reads it by a positional read, neither interfering with
+     * concurrent reads.
+     *
+     * @param position The offset.
+     * @param length   The number of bytes.
+     * @return A heap-buffer containing the bytes, positioned at 0.
+     * @throws IOException If the file ends before or the reader has been closed.
+     */
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        mappingLock.readLock().lock();
+        try {
+            if (mapped != null) {
+                ByteBuffer range = mapped.duplicate();
+                range.position((int) position);
+                range.limit((int) position + length);
+
+                buffer.put(range);
+                buffer.flip();
+                return buffer;
+            }
+        } finally {
+            mappingLock.readLock().unlock();
+        }
+
+        if (channel == null || !channel.isOpen()) {
+            throw new IOException(file + " has been closed");
+        }
+
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+
+            if (n < 0) {
+                throw new EOFException(file + " ended unexpectedly");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Unmaps the file or closes the channel.
+     */
+    @Override
+    public void close() {
+        ByteBuffer unmapped;
+
+        mappingLock.writeLock().lock();
+        try {
+            unmapped = mapped;
+            mapped = null;
+        } finally {
+            mappingLock.writeLock().unlock();
+        }
+
+        if (unmapped != null) {
+            unmap(unmapped);
+        }
+
+        for (int resolution = 0; lastDecoded != null && resolution < lastDecoded.length(); resolution++) {
+            lastDecoded.set(resolution, null);
+        }
+
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not close " + file, e);
+        }
+    }
+
+    /**
+     * Releases a mapping right away. There is no public API for this, so the cleaner of the buffer is invoked through
+     * sun.misc.Unsafe on Java 9 and later and through the buffer itself on Java 8. If neither is accessible,
+     * the mapping is left to the garbage-collector.
+     *
+     * @param buffer The mapped buffer, which must not be accessed anymore.
+     */
+    private void unmap(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8 has no Unsafe.invokeCleaner
+        }
+
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.log(Level.FINE, "Could not unmap " + file + ", leaving it to the garbage-collector", e);
+        }
+    }
+
+    /**
+     * The pixels of a decoded page.
+     */
+    private static class DecodedPage {
+        /**
+         * The slot of the page.
+         */
+        private final int slot;
+
+        /**
+         * The BGR-pixels of the page.
+         */
+        private final byte[] pixels;
+
+        /**
+         * The Constructor.
+         *
+         * @param slot   The slot of the page.
+         * @param pixels The BGR-pixels of the page.
+         */
+        private DecodedPage(int slot, byte[] pixels) {
+            this.slot = slot;
+            this.pixels = pixels;
+        }
+    }
+}
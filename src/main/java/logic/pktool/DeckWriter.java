@@ -0,0 +1,653 @@
+package logic.pktool;
+
+import logic.pdftoppm.RenderScheduler;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Writes a presentation in the {@link DeckFormat}. Space for the header and the page-table is reserved up front, the
+ * page-blobs are appended as the pages are written and the table is filled in on {@link #close()}, so the pages never
+ * have to be held in memory all at once.
+ * <p>
+ * The pages are written to a temporary file next to the target, which replaces the target only once it is complete.
+ * Thereby a deck which is currently memory-mapped by a {@link DeckReader} is never truncated underneath the mapping,
+ * and an aborted save never leaves a partial file behind.
+ * <p>
+ * Unless disabled by {@link #setDeltaEncoding(boolean)}, {@link #writePages(IntFunction)} stores pages which differ
+ * from their predecessor in only a few tiles, like the steps of a build-up slide, as a delta to the previous page.
+ * <p>
+ * Given display-profiles, every page is additionally scaled to fit into each profile and stored alongside, see
+ * {@link DeckFormat#FLAG_PROFILES}. Entries of the page-tables are addressed by slots, the pages of the full resolution
+ * taking the slots 0 to pageCount - 1, followed by the pages of every profile.
+ */
+public class DeckWriter implements Closeable {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(DeckWriter.class.getName());
+
+    /**
+     * The file to be written.
+     */
+    private final File file;
+
+    /**
+     * The temporary file written to until the deck is complete.
+     */
+    private final File temporaryFile;
+
+    /**
+     * The channel of the temporary file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of pages.
+     */
+    private final int pageCount;
+
+    /**
+     * The boxes the pages are additionally scaled to fit into.
+     */
+    private final List<Dimension> profiles;
+
+    /**
+     * Scales a page to fit into the box of a profile.
+     */
+    private final BiFunction<BufferedImage, Dimension, BufferedImage> profileScaler;
+
+    /**
+     * The offsets of the page-blobs by slot, -1 for pages not written yet.
+     */
+    private final long[] offsets;
+
+    /**
+     * The lengths of the page-blobs.
+     */
+    private final int[] lengths;
+
+    /**
+     * The widths of the pages.
+     */
+    private final int[] widths;
+
+    /**
+     * The heights of the pages.
+     */
+    private final int[] heights;
+
+    /**
+     * The codecs of the page-blobs.
+     */
+    private final int[] codecs;
+
+    /**
+     * The codec the pages are compressed with.
+     */
+    private final PageCodec codec;
+
+    /**
+     * The compression-level passed to the {@link #codec}.
+     */
+    private final int level;
+
+    /**
+     * The fingerprints of the pages or null.
+     */
+    private final byte[][] fingerprints;
+
+    /**
+     * The offset the next page-blob is appended at.
+     */
+    private long position;
+
+    /**
+     * The number of uncompressed pixel-bytes written so far.
+     */
+    private long rawBytes;
+
+    /**
+     * Whether pages may be stored as deltas to their previous page.
+     */
+    private boolean deltaEncoding = true;
+
+    /**
+     * The number of pages stored as deltas so far.
+     */
+    private int deltaPages;
+
+    /**
+     * The Constructor, compressing the pages with {@link PageCodec#DEFLATE} at the {@link PageCodec#DEFAULT_LEVEL}.
+     * An existing file is replaced on {@link #close()}.
+     *
+     * @param file      The file to be written.
+     * @param pageCount The number of pages.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public DeckWriter(File file, int pageCount) throws IOException {
+        this(file, pageCount, PageCodec.DEFLATE, PageCodec.DEFAULT_LEVEL);
+    }
+
+    /**
+     * The Constructor. An existing file is replaced on {@link #close()}.
+     *
+     * @param file      The file to be written.
+     * @param pageCount The number of pages.
+     * @param codec     The codec the pages are compressed with.
+     * @param level     The compression-level passed to the codec.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public DeckWriter(File file, int pageCount, PageCodec codec, int level) throws IOException {
+        this(file, pageCount, codec, level, null);
+    }
+
+    /**
+     * The Constructor. An existing file is replaced on {@link #close()}.
+     *
+     * @param file         The file to be written.
+     * @param pageCount    The number of pages.
+     * @param codec        The codec the pages are compressed with.
+     * @param level        The compression-level passed to the codec.
+     * @param fingerprints The fingerprints of the PDF-content of the pages, see {@link DeckFormat#FLAG_FINGERPRINTS},
+     *                     or null.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public DeckWriter(File file, int pageCount, PageCodec codec, int level, byte[][] fingerprints) throws IOException {
+        this(file, pageCount, codec, level, fingerprints, Collections.emptyList(), null);
+    }
+
+    /**
+     * The Constructor. An existing file is replaced on {@link #close()}.
+     *
+     * @param file          The file to be written.
+     * @param pageCount     The number of pages.
+     * @param codec         The codec the pages are compressed with.
+     * @param level         The compression-level passed to the codec.
+     * @param fingerprints  The fingerprints of the PDF-content of the pages, see {@link DeckFormat#FLAG_FINGERPRINTS},
+     *                      or null.
+     * @param profiles      The boxes of the display-profiles the pages are additionally stored for, see
+     *                      {@link DeckFormat#FLAG_PROFILES}, possibly empty.
+     * @param profileScaler Scales a page to fit into the box of a profile. Might be called from any thread.
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public DeckWriter(File file, int pageCount, PageCodec codec, int level, byte[][] fingerprints, List<Dimension> profiles,
+                      BiFunction<BufferedImage, Dimension, BufferedImage> profileScaler) throws IOException {
+        if (fingerprints != null && fingerprints.length != pageCount) {
+            throw new IllegalArgumentException(fingerprints.length + " fingerprints given for " + pageCount + " pages");
+        }
+
+        if (profiles.size() > DeckFormat.MAX_PROFILES) {
+            throw new IllegalArgumentException(profiles.size() + " display-profiles given, at most "
+                    + DeckFormat.MAX_PROFILES + " supported");
+        }
+
+        this.file = file;
+        this.fingerprints = fingerprints;
+        this.profiles = new ArrayList<>();
+        this.profileScaler = profileScaler;
+        this.codec = codec;
+        this.level = level;
+
+        for (Dimension profile : profiles) {
+            this.profiles.add(new Dimension(profile));
+        }
+
+        int slots = pageCount * (1 + profiles.size());
+
+        this.pageCount = pageCount;
+        this.offsets = new long[slots];
+        this.lengths = new int[slots];
+        this.widths = new int[slots];
+        this.heights = new int[slots];
+        this.codecs = new int[slots];
+        this.position = DeckFormat.getDataOffset(pageCount, getFlags(), profiles.size());
+        this.temporaryFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        this.channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.WRITE);
+
+        Arrays.fill(offsets, -1);
+    }
+
+    /**
+     * Sets whether {@link #writePages(IntFunction)} may store pages as deltas to their previous page, enabled by default.
+     *
+     * @param deltaEncoding Whether to delta-encode pages.
+     */
+    public void setDeltaEncoding(boolean deltaEncoding) {
+        this.deltaEncoding = deltaEncoding;
+    }
+
+    /**
+     * Compresses a page and its versions scaled to the display-profiles completely and appends them to the file.
+     *
+     * @param page  The number of the page, starting at 0.
+     * @param image The page.
+     * @throws IOException If the page cannot be written.
+     */
+    public void writePage(int page, BufferedImage image) throws IOException {
+        append(page, encode(image));
+
+        for (int profile = 0; profile < profiles.size(); profile++) {
+            append(getSlot(profile, page), encode(profileScaler.apply(image, profiles.get(profile))));
+        }
+    }
+
+    /**
+     * Compresses all pages in parallel on the {@link RenderScheduler} and appends them in the order of the pages,
+     * each followed by its versions scaled to the display-profiles. Only a few pages more than the scheduler runs
+     * concurrently are requested ahead of the last written one, so a windowed cache does not have to materialize the
+     * whole presentation at once and every page is materialized only once. The throughput is logged.
+     *
+     * @param pages Returns a future completed with a page, given its number. It must not block.
+     * @throws IOException If a page cannot be materialized, compressed or written.
+     */
+    public void writePages(IntFunction<CompletableFuture<BufferedImage>> pages) throws IOException {
+        RenderScheduler scheduler = RenderScheduler.getInstance();
+        int variants = 1 + profiles.size();
+        int maxEncodingsAhead = getPagesAhead() * variants;
+
+        // the encodings are queued by page and variant, the full resolution being variant 0 and the profiles following
+        ArrayDeque<CompletableFuture<EncodedPage>> pending = new ArrayDeque<>();
+        List<CompletableFuture<BufferedImage>> previous = new ArrayList<>(Collections.nCopies(variants, null));
+        long start = System.nanoTime();
+        int written = 0;
+
+        for (int p = 0; p < pageCount; p++) {
+            CompletableFuture<BufferedImage> image = pages.apply(p);
+
+            for (int variant = 0; variant < variants; variant++) {
+                // the pages are materialized by their own jobs, so these jobs never wait for other jobs of the scheduler
+                Dimension box = variant > 0 ? profiles.get(variant - 1) : null;
+                CompletableFuture<BufferedImage> scaled = box == null ? image : image.thenCompose(img ->
+                        scheduler.submit(() -> profileScaler.apply(img, box), RenderScheduler.PRIORITY_BACKGROUND));
+
+                pending.add(encodeAsync(p, scaled, previous.get(variant)));
+                previous.set(variant, scaled);
+
+                if (pending.size() >= maxEncodingsAhead) {
+                    append(getSlot(written % variants - 1, written / variants), awaitEncoding(pending.poll()));
+                    written++;
+                }
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            append(getSlot(written % variants - 1, written / variants), awaitEncoding(pending.poll()));
+            written++;
+        }
+
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        double throughput = rawBytes / (1024.0 * 1024.0) / (millis / 1_000.0);
+
+        LOG.info(String.format("Wrote %d pages in %d display-profiles (%d as deltas) compressed with %s level %d in %.0f ms: "
+                        + "%d MB to %d MB, %.1f MB/s", pageCount, profiles.size(), deltaPages, codec, level, millis,
+                rawBytes >> 20, position >> 20, throughput));
+    }
+
+    /**
+     * Returns how many pages {@link #writePages} requests ahead of the last written one at most, e.g. for rendering
+     * them in batches of that size.
+     *
+     * @return The number of pages.
+     */
+    public static int getPagesAhead() {
+        return RenderScheduler.getInstance().getParallelism() * 2;
+    }
+
+    /**
+     * Returns the slot of a page in the page-tables.
+     *
+     * @param profile The index of the display-profile or -1 for the full resolution.
+     * @param page    The number of the page.
+     * @return The slot.
+     */
+    private int getSlot(int profile, int page) {
+        return (profile + 1) * pageCount + page;
+    }
+
+    /**
+     * Compresses a page on the {@link RenderScheduler} as soon as it is materialized, as a delta to the previous page
+     * unless it is a keyframe.
+     *
+     * @param page     The number of the page.
+     * @param image    A future completed with the page.
+     * @param previous A future completed with the previous page of the same resolution or null for the first page.
+     * @return A future completed with the compressed page.
+     */
+    private CompletableFuture<EncodedPage> encodeAsync(int page, CompletableFuture<BufferedImage> image,
+                                                       CompletableFuture<BufferedImage> previous) {
+        RenderScheduler scheduler = RenderScheduler.getInstance();
+
+        if (deltaEncoding && page % DeckFormat.KEYFRAME_INTERVAL != 0) {
+            return image.thenCombine(previous, (img, prev) -> new BufferedImage[]{img, prev})
+                    .thenCompose(pair -> scheduler.submit(() -> encodeDelta(pair[0], pair[1]),
+                            RenderScheduler.PRIORITY_BACKGROUND));
+        }
+
+        return image.thenCompose(img -> scheduler.submit(() -> encode(img), RenderScheduler.PRIORITY_BACKGROUND));
+    }
+
+    /**
+     * Waits for a page to be compressed.
+     *
+     * @param encoding A future completed with the compressed page.
+     * @return The compressed page.
+     * @throws IOException If the page could not be materialized or compressed.
+     */
+    private static EncodedPage awaitEncoding(CompletableFuture<EncodedPage> encoding) throws IOException {
+        try {
+            return encoding.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IOException("Could not compress page", e.getCause());
+        }
+    }
+
+    /**
+     * Compresses a page. Might be called from any thread.
+     *
+     * @param image The page.
+     * @return The compressed page.
+     */
+    private EncodedPage encode(BufferedImage image) {
+        byte[] pixels = DeckFormat.getPixels(image);
+
+        return new EncodedPage(image.getWidth(), image.getHeight(), pixels.length, codec.getId(), codec.encode(pixels, level));
+    }
+
+    /**
+     * Compresses a page as the tiles which changed relative to the previous page, or completely if the pages differ
+     * in size or in too many tiles. Might be called from any thread.
+     *
+     * @param image    The page.
+     * @param previous The previous page.
+     * @return The compressed page.
+     */
+    private EncodedPage encodeDelta(BufferedImage image, BufferedImage previous) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        if (previous.getWidth() != width || previous.getHeight() != height) {
+            return encode(image);
+        }
+
+        byte[] pixels = DeckFormat.getPixels(image);
+        byte[] delta = TileDelta.encode(pixels, DeckFormat.getPixels(previous), width, height, codec, level);
+
+        if (delta == null) {
+            return new EncodedPage(width, height, pixels.length, codec.getId(), codec.encode(pixels, level));
+        }
+
+        return new EncodedPage(width, height, pixels.length, codec.getId() | DeckFormat.CODEC_DELTA, delta);
+    }
+
+    /**
+     * Appends a compressed page to the file.
+     *
+     * @param slot    The slot of the page.
+     * @param encoded The compressed page.
+     * @throws IOException If the page cannot be written.
+     */
+    private synchronized void append(int slot, EncodedPage encoded) throws IOException {
+        writeFully(ByteBuffer.wrap(encoded.blob), position);
+
+        offsets[slot] = position;
+        lengths[slot] = encoded.blob.length;
+        widths[slot] = encoded.width;
+        heights[slot] = encoded.height;
+        codecs[slot] = encoded.codecId;
+
+        position += encoded.blob.length;
+        rawBytes += encoded.rawBytes;
+
+        if ((encoded.codecId & DeckFormat.CODEC_DELTA) != 0) {
+            deltaPages++;
+        }
+    }
+
+    /**
+     * Returns the number of uncompressed pixel-bytes written so far.
+     *
+     * @return The number of bytes.
+     */
+    public synchronized long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * Returns the number of bytes written so far, including the header and the page-table.
+     *
+     * @return The size of the file.
+     */
+    public synchronized long getSize() {
+        return position;
+    }
+
+    /**
+     * Returns the number of pages stored as deltas to their previous page so far.
+     *
+     * @return The number of pages.
+     */
+    public synchronized int getDeltaPages() {
+        return deltaPages;
+    }
+
+    /**
+     * Writes the header and the page-table and replaces the target-file by the completed deck. If this fails, the
+     * temporary file is deleted and the target-file is left untouched.
+     *
+     * @throws IOException If not every page has been written or the file cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+
+        boolean complete = false;
+
+        try {
+            for (int slot = 0; slot < offsets.length; slot++) {
+                if (offsets[slot] < 0) {
+                    throw new IOException("Page " + (slot % pageCount + 1) + (slot < pageCount ? "" : " of display-profile "
+                            + profiles.get(slot / pageCount - 1)) + " has not been written");
+                }
+            }
+
+            ByteBuffer table = ByteBuffer.allocate((int) DeckFormat.getDataOffset(pageCount, getFlags(), profiles.size()));
+            table.putInt(DeckFormat.MAGIC).putInt(DeckFormat.VERSION).putInt(pageCount).putInt(getFlags());
+
+            putEntries(table, 0);
+
+            if (fingerprints != null) {
+                for (byte[] fingerprint : fingerprints) {
+                    table.put(fingerprint, 0, DeckFormat.FINGERPRINT_SIZE);
+                }
+            }
+
+            if (!profiles.isEmpty()) {
+                table.putInt(profiles.size());
+
+                for (int profile = 0; profile < profiles.size(); profile++) {
+                    table.putInt(profiles.get(profile).width).putInt(profiles.get(profile).height);
+                    putEntries(table, getSlot(profile, 0));
+                }
+            }
+
+            table.flip();
+            writeFully(table, 0);
+            channel.force(false);
+            channel.close();
+
+            replaceFile(temporaryFile, file);
+            complete = true;
+        } finally {
+            if (!complete) {
+                abort();
+            }
+        }
+    }
+
+    /**
+     * Replaces a file by another one, atomically if possible. If the target cannot be replaced atomically, e.g. on
+     * Windows while another process reads it, the source is copied over the target instead. A target mapped by a
+     * {@link DeckReader} has to be closed before, as Windows neither replaces nor overwrites mapped files.
+     *
+     * @param source The file replacing the target, deleted afterwards.
+     * @param target The file to be replaced.
+     * @throws IOException If the target cannot be replaced.
+     */
+    public static void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return;
+        } catch (AccessDeniedException | AtomicMoveNotSupportedException e) {
+            LOG.log(Level.WARNING, "Could not replace " + target + " atomically, copying over it instead", e);
+        }
+
+        Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        if (!source.delete()) {
+            LOG.warning("Could not delete " + source);
+        }
+    }
+
+    /**
+     * Puts the page-table entries of one resolution.
+     *
+     * @param table     The buffer.
+     * @param firstSlot The slot of the first page.
+     */
+    private void putEntries(ByteBuffer table, int firstSlot) {
+        for (int slot = firstSlot; slot < firstSlot + pageCount; slot++) {
+            table.putLong(offsets[slot]).putInt(lengths[slot]).putInt(widths[slot]).putInt(heights[slot]).putInt(codecs[slot]);
+        }
+    }
+
+    /**
+     * Discards the deck written so far, leaving the target-file untouched.
+     */
+    public synchronized void abort() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not close " + temporaryFile, e);
+        }
+
+        if (temporaryFile.exists() && !temporaryFile.delete()) {
+            LOG.warning("Could not delete " + temporaryFile);
+        }
+    }
+
+    /**
+     * Returns the flags of the file.
+     *
+     * @return The flags.
+     */
+    private int getFlags() {
+        return (fingerprints != null ? DeckFormat.FLAG_FINGERPRINTS : 0) | (profiles.isEmpty() ? 0 : DeckFormat.FLAG_PROFILES);
+    }
+
+    /**
+     * Writes a buffer completely at a given offset.
+     *
+     * @param buffer   The buffer.
+     * @param position The offset in the file.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * A compressed page which is not written yet.
+     */
+    private static class EncodedPage {
+        /**
+         * The width of the page.
+         */
+        private final int width;
+
+        /**
+         * The height of the page.
+         */
+        private final int height;
+
+        /**
+         * The number of uncompressed pixel-bytes.
+         */
+        private final long rawBytes;
+
+        /**
+         * The id of the codec of the page-blob, possibly combined with {@link DeckFormat#CODEC_DELTA}.
+         */
+        private final int codecId;
+
+        /**
+         * The page-blob.
+         */
+        private final byte[] blob;
+
+        /**
+         * The Constructor.
+         *
+         * @param width    The width of the page.
+         * @param height   The height of the page.
+         * @param rawBytes The number of uncompressed pixel-bytes.
+         * @param codecId  The id of the codec of the page-blob.
+         * @param blob     The page-blob.
+         */
+        private EncodedPage(int width, int height, long rawBytes, int codecId, byte[] blob) {
+            this.width = width;
+            this.height = height;
+            this.rawBytes = rawBytes;
+            this.codecId = codecId;
+            this.blob = blob;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package logic.pktool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The codecs the page-blobs of a {@link DeckFormat}-file can be compressed with. The codec of every page is recorded
+ * in the page-table by its id, so decks mixing codecs stay readable. All codecs operate on the BGR-pixels of a page
+ * and are stateless, so pages can be encoded and decoded concurrently.
+ */
+public enum PageCodec {
+
+    /**
+     * The raw pixels without any compression.
+     */
+    STORED(0) {
+        @Override
+        public byte[] encode(byte[] pixels, int level) {
+            return pixels.clone();
+        }
+
+        @Override
+        public void decode(byte[] blob, byte[] pixels) throws IOException {
+            if (blob.length != pixels.length) {
+                throw new IOException("Stored page has " + blob.length + " instead of " + pixels.length + " bytes");
+            }
+
+            System.arraycopy(blob, 0, pixels, 0, pixels.length);
+        }
+    },
+
+    /**
+     * The pixels compressed with deflate, the level ranging from {@link Deflater#BEST_SPEED} to
+     * {@link Deflater#BEST_COMPRESSION}.
+     */
+    DEFLATE(1) {
+        @Override
+        public byte[] encode(byte[] pixels, int level) {
+            Deflater deflater = new Deflater(level);
+            deflater.setInput(pixels);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(pixels.length / 8);
+            byte[] buffer = new byte[1 << 16];
+
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+
+            deflater.end();
+
+            return out.toByteArray();
+        }
+
+        @Override
+        public void decode(byte[] blob, byte[] pixels) throws IOException {
+            Inflater inflater = new Inflater();
+            inflater.setInput(blob);
+
+            try {
+                int filled = 0;
+
+                while (filled < pixels.length && !inflater.finished()) {
+                    int n = inflater.inflate(pixels, filled, pixels.length - filled);
+
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+
+                    filled += n;
+                }
+
+                if (filled != pixels.length) {
+                    throw new IOException("Deflated page ended after " + filled + " of " + pixels.length + " bytes");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Deflated page is corrupted", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    },
+
+    /**
+     * The pixels compressed with {@link QOICodec}, tuned for the flat colors of slides and decoding several times
+     * faster than {@link #DEFLATE} at a somewhat lower ratio. It has no levels.
+     */
+    QOI(2) {
+        @Override
+        public byte[] encode(byte[] pixels, int level) {
+            return QOICodec.encode(pixels);
+        }
+
+        @Override
+        public void decode(byte[] blob, byte[] pixels) throws IOException {
+            QOICodec.decode(blob, pixels);
+        }
+    };
+
+    /**
+     * The level used if none is given, a trade-off between size and speed.
+     */
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * The id of the codec in the page-table.
+     */
+    private final int id;
+
+    /**
+     * The Constructor.
+     *
+     * @param id The id of the codec in the page-table.
+     */
+    PageCodec(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the id of the codec in the page-table.
+     *
+     * @return The id.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the codec recorded by an id.
+     *
+     * @param id The id in the page-table.
+     * @return The codec.
+     * @throws IOException If no codec has the id.
+     */
+    public static PageCodec forId(int id) throws IOException {
+        for (PageCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+
+        throw new IOException("Unknown page-codec " + id);
+    }
+
+    /**
+     * Encodes the pixels of a page.
+     *
+     * @param pixels The BGR-pixels.
+     * @param level  The compression-level, ignored by codecs without levels.
+     * @return The page-blob.
+     */
+    public abstract byte[] encode(byte[] pixels, int level);
+
+    /**
+     * Decodes a page-blob.
+     *
+     * @param blob   The page-blob.
+     * @param pixels The BGR-pixels to be filled, sized to the page.
+     * @throws IOException If the blob is corrupted.
+     */
+    public abstract void decode(byte[] blob, byte[] pixels) throws IOException;
+}
@@ -0,0 +1,380 @@
+package logic.pktool;
+
+import logic.pdftoppm.RenderResolution;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A directory of rendered presentations in the {@link DeckFormat}, addressed by the hash of the PDF-content, the
+ * renderer, its version and the resolution. Reopening an unchanged PDF thereby maps its pages instead of rendering them.
+ * <p>
+ * The size of the directory is capped: once a presentation is added, the least-recently-used presentations are
+ * deleted until the cap is met. Using an entry touches its modification-time, which keeps the LRU-order across runs.
+ */
+public class RenderCache {
+
+    /**
+     * The java.util.{@link java.util.logging.Logger}
+     */
+    private static final Logger LOG = Logger.getLogger(RenderCache.class.getName());
+
+    /**
+     * The default maximum size of the directory in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 2L << 30;
+
+    /**
+     * The file-extension of the entries.
+     */
+    private static final String EXTENSION = ".pktool";
+
+    /**
+     * The cache in the home-directory of the user, created upon first use.
+     */
+    private static RenderCache defaultCache;
+
+    /**
+     * The directory holding the entries.
+     */
+    private final File directory;
+
+    /**
+     * The maximum size of the directory in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * The Constructor. The directory is created once the first entry is added.
+     *
+     * @param directory The directory holding the entries.
+     * @param maxBytes  The maximum size of the directory in bytes.
+     */
+    public RenderCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache in ~/.pechakuchatool/render-cache capped at {@link #DEFAULT_MAX_BYTES}.
+     *
+     * @return The default {@link RenderCache}.
+     */
+    public static synchronized RenderCache getDefault() {
+        if (defaultCache == null) {
+            File home = new File(System.getProperty("user.home"), ".pechakuchatool");
+            defaultCache = new RenderCache(new File(home, "render-cache"), DEFAULT_MAX_BYTES);
+        }
+
+        return defaultCache;
+    }
+
+    /**
+     * Computes the key of a rendering. The content of the PDF is hashed, so renamed or copied files are found as well
+     * and modified files are never.
+     *
+     * @param pdf        The PDF-file.
+     * @param renderer   The name and version of the renderer.
+     * @param resolution The {@link RenderResolution} fitted to the pages.
+     * @return The key as a hex-string.
+     * @throws IOException If the file cannot be read.
+     */
+    public static String computeKey(File pdf, String renderer, RenderResolution resolution) throws IOException {
+        MessageDigest content = sha256();
+
+        try (InputStream in = new FileInputStream(pdf)) {
+            byte[] buffer = new byte[1 << 16];
+            int n;
+
+            while ((n = in.read(buffer)) > 0) {
+                content.update(buffer, 0, n);
+            }
+        }
+
+        MessageDigest key = sha256();
+        key.update(content.digest());
+        key.update(("\n" + renderer + "\n" + resolution + "\n" + DeckFormat.VERSION).getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : key.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+    /**
+     * Creates a SHA-256-digest, which every JRE supports.
+     *
+     * @return The digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Looks up a rendering, marking it as recently used.
+     *
+     * @param key The key computed by {@link #computeKey(File, String, RenderResolution)}.
+     * @return The presentation or null, if it is not cached.
+     */
+    public File lookup(String key) {
+        File entry = getEntry(key);
+
+        if (!entry.isFile()) {
+            LOG.info("Render-cache miss for " + key);
+            return null;
+        }
+
+        if (!entry.setLastModified(System.currentTimeMillis())) {
+            LOG.warning("Could not mark " + entry + " as recently used");
+        }
+
+        LOG.info("Render-cache hit for " + key);
+        return entry;
+    }
+
+    /**
+     * Starts adding a rendering, whose pages are passed to the returned {@link Recording} as they are rendered, in any
+     * order. Once every page has been recorded, the entry becomes visible and the least-recently-used ones exceeding
+     * the size-cap are evicted.
+     *
+     * @param key          The key computed by {@link #computeKey(File, String, RenderResolution)}.
+     * @param pageCount    The number of pages.
+     * @param codec        The codec the pages are compressed with.
+     * @param level        The compression-level passed to the codec.
+     * @param fingerprints The fingerprints of the PDF-content of the pages or null.
+     * @return The {@link Recording}.
+     * @throws IOException If the entry cannot be created.
+     */
+    public Recording record(String key, int pageCount, PageCodec codec, int level, byte[][] fingerprints) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create render-cache " + directory);
+        }
+
+        return new Recording(key, pageCount, new DeckWriter(getEntry(key), pageCount, codec, level, fingerprints));
+    }
+
+    /**
+     * Deletes the least-recently-used entries until the directory fits into {@link #maxBytes}.
+     *
+     * @param keep The key of an entry which is never deleted.
+     */
+    private synchronized void evict(String keep) {
+        File[] entries = listEntries();
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+
+        long size = Arrays.stream(entries).mapToLong(File::length).sum();
+
+        for (File entry : entries) {
+            if (size <= maxBytes) {
+                break;
+            }
+
+            if (entry.equals(getEntry(keep))) {
+                continue;
+            }
+
+            long length = entry.length();
+
+            // on POSIX a deleted entry which is still mapped stays readable until it is unmapped, while Windows
+            // refuses to delete it, so an entry still displayed is only evicted by a later call
+            if (entry.delete()) {
+                size -= length;
+                LOG.info("Evicted " + entry.getName() + " from the render-cache, " + (size >> 20) + " MB remaining");
+            } else {
+                LOG.warning("Could not evict " + entry + " from the render-cache");
+            }
+        }
+    }
+
+    /**
+     * Returns the file of an entry.
+     *
+     * @param key The key.
+     * @return The file, which might not exist.
+     */
+    private File getEntry(String key) {
+        return new File(directory, key + EXTENSION);
+    }
+
+    /**
+     * Lists the complete entries.
+     *
+     * @return The files of the entries.
+     */
+    private File[] listEntries() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        return entries == null ? new File[0] : entries;
+    }
+
+    /**
+     * Returns the entries, e.g. for reusing the unchanged pages of a modified PDF.
+     *
+     * @return The files of the entries, the most-recently-used first.
+     */
+    public List<File> getEntries() {
+        File[] entries = listEntries();
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+
+        return Arrays.asList(entries);
+    }
+
+    /**
+     * Returns the size of all entries.
+     *
+     * @return The number of bytes.
+     */
+    public long getSize() {
+        return Arrays.stream(listEntries()).mapToLong(File::length).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RenderCache[%s, entries=%d, size=%d MB, max=%d MB]", directory, listEntries().length,
+                getSize() >> 20, maxBytes >> 20);
+    }
+
+    /**
+     * An entry being added page by page, see {@link #record(String, int, PageCodec, int, byte[][])}. Every page is
+     * compressed and written as soon as it is recorded, so no page has to be held or rendered again for the entry.
+     */
+    public class Recording {
+        /**
+         * The key of the entry.
+         */
+        private final String key;
+
+        /**
+         * The writer of the entry.
+         */
+        private final DeckWriter writer;
+
+        /**
+         * The pages recorded so far.
+         */
+        private final BitSet recorded;
+
+        /**
+         * The number of pages not written yet.
+         */
+        private int remaining;
+
+        /**
+         * Whether the entry has been completed or discarded.
+         */
+        private boolean finished;
+
+        /**
+         * The Constructor.
+         *
+         * @param key       The key of the entry.
+         * @param pageCount The number of pages.
+         * @param writer    The writer of the entry.
+         */
+        private Recording(String key, int pageCount, DeckWriter writer) {
+            this.key = key;
+            this.writer = writer;
+            this.recorded = new BitSet(pageCount);
+            this.remaining = pageCount;
+        }
+
+        /**
+         * Compresses and writes a page, unless it has been recorded before. The entry is completed by its last page.
+         * Failures discard the entry and are only logged. Might be called from any thread.
+         *
+         * @param page  The number of the page, starting at 0.
+         * @param image The page.
+         */
+        public void addPage(int page, BufferedImage image) {
+            synchronized (this) {
+                if (finished || recorded.get(page)) {
+                    return;
+                }
+
+                recorded.set(page);
+            }
+
+            try {
+                writer.writePage(page, image);
+            } catch (IOException e) {
+                if (discard()) {
+                    LOG.log(Level.WARNING, "Could not add page " + (page + 1) + " of " + key + " to the render-cache", e);
+                }
+                return;
+            }
+
+            synchronized (this) {
+                if (finished || --remaining > 0) {
+                    return;
+                }
+
+                finished = true;
+            }
+
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not add " + key + " to the render-cache", e);
+                return;
+            }
+
+            LOG.info("Added " + key + " to the render-cache");
+
+            evict(key);
+        }
+
+        /**
+         * Discards the entry, unless it has been completed already.
+         *
+         * @return Whether the entry has been discarded by this call.
+         */
+        public boolean discard() {
+            synchronized (this) {
+                if (finished) {
+                    return false;
+                }
+
+                finished = true;
+            }
+
+            writer.abort();
+            LOG.fine("Discarded incomplete entry " + key + " of the render-cache");
+            return true;
+        }
+    }
+}
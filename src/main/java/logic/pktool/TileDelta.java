@@ -0,0 +1,218 @@
+package logic.pktool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Encodes a page as the tiles which changed relative to the previous page, as found on build-up slides adding one
+ * bullet-point at a time. A delta-blob consists of the tile-size, the number of changed tiles and their indices in
+ * row-major order, followed by the BGR-pixels of the changed tiles compressed as a whole with a {@link PageCodec}.
+ * Decoding therefore only copies the previous page and inflates the few changed tiles.
+ */
+final class TileDelta {
+
+    /**
+     * The edge-length of a tile in pixels.
+     */
+    static final int TILE_SIZE = 64;
+
+    /**
+     * The maximum fraction of changed tiles a page is delta-encoded up to.
+     */
+    private static final double MAX_CHANGED_FRACTION = 0.5;
+
+    /**
+     * Utility class.
+     */
+    private TileDelta() {
+    }
+
+    /**
+     * Encodes the tiles of a page which differ from the previous page.
+     *
+     * @param pixels    The BGR-pixels of the page.
+     * @param reference The BGR-pixels of the previous page of the same size.
+     * @param width     The width of the pages.
+     * @param height    The height of the pages.
+     * @param codec     The codec the changed tiles are compressed with.
+     * @param level     The compression-level passed to the codec.
+     * @return The delta-blob or null, if too many tiles changed for a delta to pay off.
+     */
+    static byte[] encode(byte[] pixels, byte[] reference, int width, int height, PageCodec codec, int level) {
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        int[] changed = new int[tilesX * tilesY];
+        int changedCount = 0;
+        int changedBytes = 0;
+
+        for (int tile = 0; tile < changed.length; tile++) {
+            if (!tileEquals(pixels, reference, width, height, tile % tilesX, tile / tilesX)) {
+                changed[changedCount++] = tile;
+                changedBytes += tileBytes(width, height, tile % tilesX, tile / tilesX);
+            }
+        }
+
+        if (changedCount > changed.length * MAX_CHANGED_FRACTION) {
+            return null;
+        }
+
+        byte[] tiles = new byte[changedBytes];
+        int position = 0;
+
+        for (int i = 0; i < changedCount; i++) {
+            position = copyTile(pixels, width, height, changed[i] % tilesX, changed[i] / tilesX, tiles, position, true);
+        }
+
+        byte[] compressed = codec.encode(tiles, level);
+
+        ByteBuffer blob = ByteBuffer.allocate(8 + changedCount * 4 + compressed.length);
+        blob.putInt(TILE_SIZE).putInt(changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            blob.putInt(changed[i]);
+        }
+        blob.put(compressed);
+
+        return blob.array();
+    }
+
+    /**
+     * Applies a delta-blob to the pixels of the previous page.
+     *
+     * @param blob   The delta-blob.
+     * @param pixels The BGR-pixels of the previous page, overwritten by the page.
+     * @param width  The width of the page.
+     * @param height The height of the page.
+     * @param codec  The codec the changed tiles are compressed with.
+     * @throws IOException If the blob is corrupted.
+     */
+    static void apply(byte[] blob, byte[] pixels, int width, int height, PageCodec codec) throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(blob);
+
+        if (blob.length < 8 || header.getInt() != TILE_SIZE) {
+            throw new IOException("Delta-page has an unsupported tile-size");
+        }
+
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tileCount = tilesX * ((height + TILE_SIZE - 1) / TILE_SIZE);
+        int changedCount = header.getInt();
+
+        if (changedCount < 0 || changedCount > tileCount || blob.length < 8 + changedCount * 4) {
+            throw new IOException("Delta-page has a corrupted tile-list");
+        }
+
+        int[] changed = new int[changedCount];
+        int changedBytes = 0;
+
+        for (int i = 0; i < changedCount; i++) {
+            changed[i] = header.getInt();
+
+            if (changed[i] < 0 || changed[i] >= tileCount) {
+                throw new IOException("Delta-page references tile " + changed[i] + " of " + tileCount);
+            }
+
+            changedBytes += tileBytes(width, height, changed[i] % tilesX, changed[i] / tilesX);
+        }
+
+        byte[] tiles = new byte[changedBytes];
+        codec.decode(Arrays.copyOfRange(blob, header.position(), blob.length), tiles);
+
+        int position = 0;
+        for (int tile : changed) {
+            position = copyTile(pixels, width, height, tile % tilesX, tile / tilesX, tiles, position, false);
+        }
+    }
+
+    /**
+     * Compares a tile of two pages.
+     *
+     * @param pixels    The BGR-pixels of the first page.
+     * @param reference The BGR-pixels of the second page.
+     * @param width     The width of the pages.
+     * @param height    The height of the pages.
+     * @param tileX     The column of the tile.
+     * @param tileY     The row of the tile.
+     * @return Whether the tile is equal on both pages.
+     */
+    private static boolean tileEquals(byte[] pixels, byte[] reference, int width, int height, int tileX, int tileY) {
+        int rowBytes = Math.min(TILE_SIZE, width - tileX * TILE_SIZE) * 3;
+        int lastRow = Math.min(height, (tileY + 1) * TILE_SIZE);
+
+        for (int y = tileY * TILE_SIZE; y < lastRow; y++) {
+            int offset = (y * width + tileX * TILE_SIZE) * 3;
+
+            for (int i = offset; i < offset + rowBytes; i++) {
+                if (pixels[i] != reference[i]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes the pixels of a tile take, tiles at the right and bottom edge being smaller.
+     *
+     * @param width  The width of the page.
+     * @param height The height of the page.
+     * @param tileX  The column of the tile.
+     * @param tileY  The row of the tile.
+     * @return The number of bytes.
+     */
+    private static int tileBytes(int width, int height, int tileX, int tileY) {
+        return Math.min(TILE_SIZE, width - tileX * TILE_SIZE) * Math.min(TILE_SIZE, height - tileY * TILE_SIZE) * 3;
+    }
+
+    /**
+     * Copies the rows of a tile between a page and a buffer of consecutive tiles.
+     *
+     * @param pixels   The BGR-pixels of the page.
+     * @param width    The width of the page.
+     * @param height   The height of the page.
+     * @param tileX    The column of the tile.
+     * @param tileY    The row of the tile.
+     * @param tiles    The buffer.
+     * @param position The offset of the tile in the buffer.
+     * @param toTiles  Whether to copy from the page to the buffer or the other way round.
+     * @return The offset of the next tile in the buffer.
+     */
+    private static int copyTile(byte[] pixels, int width, int height, int tileX, int tileY, byte[] tiles, int position,
+                                boolean toTiles) {
+        int rowBytes = Math.min(TILE_SIZE, width - tileX * TILE_SIZE) * 3;
+        int lastRow = Math.min(height, (tileY + 1) * TILE_SIZE);
+
+        for (int y = tileY * TILE_SIZE; y < lastRow; y++) {
+            int offset = (y * width + tileX * TILE_SIZE) * 3;
+
+            if (toTiles) {
+                System.arraycopy(pixels, offset, tiles, position, rowBytes);
+            } else {
+                System.arraycopy(tiles, position, pixels, offset, rowBytes);
+            }
+
+            position += rowBytes;
+        }
+
+        return position;
+    }
+}
@@ -0,0 +1,597 @@
+package main;
+
+import logic.AcceleratedSlideIcon;
+import logic.FlipStatistics;
+import logic.ImageScaler;
+import logic.PDFToPPMLocalController;
+import logic.pdftoppm.OutputFormat;
+import logic.pdftoppm.PDFToPPMConverter;
+import logic.pdftoppm.PPMStreamDecoder;
+import logic.pdftoppm.RenderMode;
+import logic.pdftoppm.RenderResolution;
+import logic.pktool.DeckFormat;
+import logic.pktool.PageCodec;
+import logic.pktool.RenderCache;
+import org.apache.commons.io.FileUtils;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Runs micro-benchmarks of the rendering-pipeline on a given PDF-document and prints the results to the console.
+ */
+public class BenchmarkMain {
+
+    /**
+     * The {@link Logger}.
+     */
+    private static final Logger LOG = Logger.getLogger(BenchmarkMain.class.getName());
+
+    /**
+     * The number of runs before measuring, allowing the JIT and the OS' file-cache to warm up.
+     */
+    private static final int WARMUP_RUNS = 1;
+
+    /**
+     * The number of measured runs.
+     */
+    private static final int MEASURED_RUNS = 3;
+
+    /**
+     * The PDF-document to be benchmarked with.
+     */
+    private File inputFile;
+
+    /**
+     * The constructor.
+     *
+     * @param path The path of the PDF-document.
+     */
+    public BenchmarkMain(String path) {
+        this.inputFile = new File(path);
+
+        setup();
+    }
+
+    /**
+     * The setup-method.
+     */
+    private void setup() {
+        LOG.info("Starting benchmarks using " + inputFile.getName());
+
+        benchmarkRenderModes();
+        benchmarkOutputFormats();
+        benchmarkDecoders();
+        benchmarkResolutions();
+        benchmarkScaling();
+        benchmarkFlips();
+        benchmarkDeckFormats();
+        benchmarkPageCodecs();
+        benchmarkDeckCodecs();
+        benchmarkDeltaEncoding();
+        benchmarkRenderCache();
+    }
+
+    /**
+     * Compares rendering the whole document using one pdftoppm-process per page with one process per range of pages.
+     */
+    private void benchmarkRenderModes() {
+        for (RenderMode mode : RenderMode.values()) {
+            measure("render " + mode, () -> {
+                PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                controller.setRenderCache(null);
+                controller.setRenderMode(mode);
+                controller.loadNewFile(inputFile.getAbsolutePath(), false);
+
+                return controller.getPageCount();
+            });
+        }
+    }
+
+    /**
+     * Compares the whole pipeline, rendering and decoding every page, for each format pdftoppm can write.
+     */
+    private void benchmarkOutputFormats() {
+        for (OutputFormat format : OutputFormat.values()) {
+            long[] pixelBytes = new long[1];
+
+            double avg = measure("render " + RenderMode.BATCHED + " " + format, () -> {
+                PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                controller.setRenderCache(null);
+                controller.setOutputFormat(format);
+                controller.loadNewFile(inputFile.getAbsolutePath(), false);
+
+                pixelBytes[0] = controller.getPixelBytes();
+                return controller.getPageCount();
+            });
+
+            printThroughput("render " + RenderMode.BATCHED + " " + format, pixelBytes[0], avg);
+        }
+    }
+
+    /**
+     * Compares decoding the first page from PNG using {@link ImageIO} with decoding it from PPM using a
+     * {@link PPMStreamDecoder}, both from memory so that only the decoding within this JVM is measured.
+     */
+    private void benchmarkDecoders() {
+        BufferedImage page = renderFirstPage();
+
+        if (page == null) {
+            return;
+        }
+
+        long pixelBytes = (long) page.getWidth() * page.getHeight() * 3;
+
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(page, "png", png);
+            byte[] pngBytes = png.toByteArray();
+            byte[] ppmBytes = encodePPM(page);
+
+            double avg = measure("decode PNG", () -> ImageIO.read(new ByteArrayInputStream(pngBytes)).getWidth());
+            printThroughput("decode PNG", pixelBytes, avg);
+
+            avg = measure("decode PPM", () -> new PPMStreamDecoder(new ByteArrayInputStream(ppmBytes)).nextImage().getWidth());
+            printThroughput("decode PPM", pixelBytes, avg);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compares rendering at the fallback DPI-value with rendering to fit common projector-resolutions.
+     */
+    private void benchmarkResolutions() {
+        RenderResolution[] resolutions = {RenderResolution.DEFAULT, RenderResolution.fitInto(1920, 1080),
+                RenderResolution.fitInto(3840, 2160)};
+
+        for (RenderResolution resolution : resolutions) {
+            measure("render at " + resolution, () -> {
+                PDFToPPMLocalController controller = new PDFToPPMLocalController(resolution);
+                controller.setRenderCache(null);
+                controller.loadNewFile(inputFile.getAbsolutePath(), false);
+
+                return controller.getPixelBytes() / (1024 * 1024) + " MB";
+            });
+        }
+    }
+
+    /**
+     * Compares the scaling-algorithms with the former {@link java.awt.Image#getScaledInstance(int, int, int)}-path
+     * when reducing the first page from 220 DPI to typical screen-sizes.
+     */
+    private void benchmarkScaling() {
+        BufferedImage page = renderFirstPage();
+
+        if (page == null) {
+            return;
+        }
+
+        for (Dimension screen : new Dimension[]{new Dimension(1920, 1080), new Dimension(3840, 2160)}) {
+            Dimension target = ImageScaler.fitInto(page.getWidth(), page.getHeight(), screen);
+            long pixelBytes = (long) page.getWidth() * page.getHeight() * 3;
+
+            String name = "scale to " + target.width + "x" + target.height + " ImageIcon";
+            double avg = measure(name, () -> {
+                // the former path: the filter only runs once the icon is painted
+                ImageIcon icon = new ImageIcon(page.getScaledInstance(target.width, target.height, Image.SCALE_SMOOTH));
+                BufferedImage canvas = new BufferedImage(icon.getIconWidth(), icon.getIconHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = canvas.createGraphics();
+                icon.paintIcon(null, g, 0, 0);
+                g.dispose();
+
+                return canvas.getWidth();
+            });
+            printThroughput(name, pixelBytes, avg);
+
+            for (ImageScaler.Algorithm algorithm : ImageScaler.Algorithm.values()) {
+                name = "scale to " + target.width + "x" + target.height + " " + algorithm;
+                avg = measure(name, () -> ImageScaler.scale(page, target.width, target.height, algorithm).getWidth());
+                printThroughput(name, pixelBytes, avg);
+            }
+        }
+    }
+
+    /**
+     * Benchmarks painting a scaled page as done on every page-change, with and without converting it into
+     * a format compatible to the screen beforehand.
+     */
+    private void benchmarkFlips() {
+        BufferedImage page = renderFirstPage();
+
+        if (page == null) {
+            return;
+        }
+
+        Dimension target = ImageScaler.fitInto(page.getWidth(), page.getHeight(), new Dimension(1920, 1080));
+        BufferedImage scaled = ImageScaler.scale(page, target.width, target.height, ImageScaler.Algorithm.PROGRESSIVE_BILINEAR);
+
+        // a generic 3-byte image as the scaler produced it before
+        BufferedImage generic = new BufferedImage(scaled.getWidth(), scaled.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D gg = generic.createGraphics();
+        gg.drawImage(scaled, 0, 0, null);
+        gg.dispose();
+
+        GraphicsConfiguration gc = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        Image screen = gc == null ? new BufferedImage(target.width, target.height, BufferedImage.TYPE_INT_RGB)
+                : gc.createCompatibleVolatileImage(target.width, target.height, Transparency.OPAQUE);
+        if (gc == null) {
+            System.out.println("headless, so " + AcceleratedSlideIcon.Acceleration.VOLATILE + " is painted like "
+                    + AcceleratedSlideIcon.Acceleration.MANAGED);
+        }
+
+        // painted into the screen's configuration, as an unrealized component has none and VOLATILE would fall back
+        Component component = new JLabel() {
+            @Override
+            public GraphicsConfiguration getGraphicsConfiguration() {
+                return gc;
+            }
+        };
+
+        for (AcceleratedSlideIcon.Acceleration acceleration : AcceleratedSlideIcon.Acceleration.values()) {
+            FlipStatistics statistics = new FlipStatistics();
+            AcceleratedSlideIcon icon = AcceleratedSlideIcon.create(generic, gc, acceleration, statistics);
+
+            measure("100 flips " + acceleration, () -> {
+                Graphics2D g = (Graphics2D) screen.getGraphics();
+
+                for (int i = 0; i < 100; i++) {
+                    icon.markShown(System.nanoTime());
+                    icon.paintIcon(component, g, 0, 0);
+                }
+
+                g.dispose();
+                return icon.getIconWidth();
+            });
+
+            System.out.println("flip latency " + acceleration + ": " + statistics);
+            icon.flush();
+        }
+    }
+
+    /**
+     * Compares saving and loading a pre-rendered presentation in the legacy format with the random-access
+     * {@link DeckFormat}, including decoding every page, and prints the resulting file-sizes.
+     */
+    private void benchmarkDeckFormats() {
+        PDFToPPMLocalController rendered = new PDFToPPMLocalController();
+        rendered.setRenderCache(null);
+
+        try {
+            rendered.loadNewFile(inputFile.getAbsolutePath(), false);
+            long pixelBytes = rendered.getPixelBytes();
+
+            File legacy = File.createTempFile("benchmark", ".legacy.pktool");
+            File deck = File.createTempFile("benchmark", ".pktool");
+            legacy.deleteOnExit();
+            deck.deleteOnExit();
+
+            double avg = measure("save legacy", () -> {
+                rendered.saveLegacyPresentationToFile(legacy);
+                return legacy.length() / 1024 + " KB";
+            });
+            printThroughput("save legacy", pixelBytes, avg);
+
+            avg = measure("save v" + DeckFormat.VERSION, () -> {
+                rendered.savePresentationToFile(deck);
+                return deck.length() / 1024 + " KB";
+            });
+            printThroughput("save v" + DeckFormat.VERSION, pixelBytes, avg);
+
+            for (File file : new File[]{legacy, deck}) {
+                String name = "load " + (file == legacy ? "legacy" : "v" + DeckFormat.VERSION);
+
+                measure(name + " first page", () -> {
+                    PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                    controller.loadPresentationFromFile(file);
+                    return controller.getPageCount() + " pages";
+                });
+
+                avg = measure(name + " all pages", () -> {
+                    PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                    controller.loadPresentationFromFile(file);
+                    return controller.getPixelBytes() / (1024 * 1024) + " MB";
+                });
+                printThroughput(name + " all pages", pixelBytes, avg);
+            }
+
+            System.out.printf("file size legacy %d KB, v%d %d KB%n", legacy.length() / 1024, DeckFormat.VERSION, deck.length() / 1024);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compares encoding and decoding the first page with every {@link PageCodec} and with PNG using {@link ImageIO},
+     * all in memory, and prints the compression-ratios.
+     */
+    private void benchmarkPageCodecs() {
+        BufferedImage page = renderFirstPage();
+
+        if (page == null) {
+            return;
+        }
+
+        byte[] pixels = DeckFormat.getPixels(page);
+        byte[] decoded = new byte[pixels.length];
+
+        try {
+            for (PageCodec codec : PageCodec.values()) {
+                byte[] blob = codec.encode(pixels, PageCodec.DEFAULT_LEVEL);
+
+                double avg = measure("encode " + codec, () -> codec.encode(pixels, PageCodec.DEFAULT_LEVEL).length + " bytes");
+                printThroughput("encode " + codec, pixels.length, avg);
+
+                avg = measure("decode " + codec, () -> {
+                    codec.decode(blob, decoded);
+                    return blob.length + " bytes";
+                });
+                printThroughput("decode " + codec, pixels.length, avg);
+
+                System.out.printf("ratio %s %.1f%n", codec, pixels.length / (double) blob.length);
+            }
+
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(page, "png", png);
+            byte[] pngBytes = png.toByteArray();
+
+            double avg = measure("encode PNG", () -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ImageIO.write(page, "png", out);
+                return out.size() + " bytes";
+            });
+            printThroughput("encode PNG", pixels.length, avg);
+
+            avg = measure("decode PNG", () -> ImageIO.read(new ByteArrayInputStream(pngBytes)).getWidth());
+            printThroughput("decode PNG", pixels.length, avg);
+
+            System.out.printf("ratio PNG %.1f%n", pixels.length / (double) pngBytes.length);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compares the {@link PageCodec}s and compression-levels when saving a presentation with all pages compressed in
+     * parallel, and when loading it decoding all pages in parallel.
+     */
+    private void benchmarkDeckCodecs() {
+        PDFToPPMLocalController rendered = new PDFToPPMLocalController();
+        rendered.setRenderCache(null);
+
+        try {
+            rendered.loadNewFile(inputFile.getAbsolutePath(), false);
+            long pixelBytes = rendered.getPixelBytes();
+
+            File deck = File.createTempFile("benchmark", ".pktool");
+            deck.deleteOnExit();
+
+            for (PageCodec codec : PageCodec.values()) {
+                int[] levels = codec == PageCodec.DEFLATE ? new int[]{Deflater.BEST_SPEED, PageCodec.DEFAULT_LEVEL,
+                        Deflater.BEST_COMPRESSION} : new int[]{PageCodec.DEFAULT_LEVEL};
+
+                for (int level : levels) {
+                    String name = codec + " level " + level;
+                    rendered.setDeckCodec(codec, level);
+
+                    double avg = measure("save " + name, () -> {
+                        rendered.savePresentationToFile(deck);
+                        return deck.length() / 1024 + " KB";
+                    });
+                    printThroughput("save " + name, pixelBytes, avg);
+
+                    avg = measure("load " + name, () -> {
+                        PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                        controller.loadPresentationFromFile(deck);
+                        return controller.getPixelBytes() / (1024 * 1024) + " MB";
+                    });
+                    printThroughput("load " + name, pixelBytes, avg);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compares saving a presentation with and without storing pages as deltas to their previous page, and loading it
+     * decoding all pages, and prints the resulting file-sizes. Pays off for inputs with many build-up slides.
+     */
+    private void benchmarkDeltaEncoding() {
+        PDFToPPMLocalController rendered = new PDFToPPMLocalController();
+        rendered.setRenderCache(null);
+
+        try {
+            rendered.loadNewFile(inputFile.getAbsolutePath(), false);
+            long pixelBytes = rendered.getPixelBytes();
+            long[] sizes = new long[2];
+
+            for (boolean deltaEncoding : new boolean[]{false, true}) {
+                String name = deltaEncoding ? "delta-encoded" : "keyframes only";
+                File deck = File.createTempFile("benchmark", ".pktool");
+                deck.deleteOnExit();
+
+                rendered.setDeckDeltaEncoding(deltaEncoding);
+
+                double avg = measure("save " + name, () -> {
+                    rendered.savePresentationToFile(deck);
+                    return deck.length() / 1024 + " KB";
+                });
+                printThroughput("save " + name, pixelBytes, avg);
+
+                avg = measure("load " + name + " all pages", () -> {
+                    PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                    controller.loadPresentationFromFile(deck);
+                    return controller.getPixelBytes() / (1024 * 1024) + " MB";
+                });
+                printThroughput("load " + name + " all pages", pixelBytes, avg);
+
+                sizes[deltaEncoding ? 1 : 0] = deck.length();
+            }
+
+            System.out.printf("file size keyframes only %d KB, delta-encoded %d KB%n", sizes[0] / 1024, sizes[1] / 1024);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compares opening the input-file without a render-cache with opening it from a populated {@link RenderCache},
+     * both up to the first page and up to all pages.
+     */
+    private void benchmarkRenderCache() {
+        try {
+            File directory = Files.createTempDirectory("benchmark-render-cache").toFile();
+            RenderCache renderCache = new RenderCache(directory, RenderCache.DEFAULT_MAX_BYTES);
+
+            measure("open uncached", () -> {
+                PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                controller.setRenderCache(null);
+                controller.loadNewFile(inputFile.getAbsolutePath(), false);
+                return controller.getPageCount() + " pages";
+            });
+
+            PDFToPPMLocalController populating = new PDFToPPMLocalController();
+            populating.setRenderCache(renderCache);
+            populating.loadNewFile(inputFile.getAbsolutePath(), false);
+
+            // the rendering is added in the background once all pages are rendered
+            for (int i = 0; i < 100 && renderCache.getSize() == 0; i++) {
+                Thread.sleep(100);
+            }
+
+            System.out.println(renderCache);
+
+            for (boolean allPages : new boolean[]{false, true}) {
+                measure("open cached " + (allPages ? "all pages" : "first page"), () -> {
+                    PDFToPPMLocalController controller = new PDFToPPMLocalController();
+                    controller.setRenderCache(renderCache);
+                    controller.setProgressiveLoading(!allPages);
+                    controller.loadNewFile(inputFile.getAbsolutePath(), false);
+                    return controller.getPageCount() + " pages";
+                });
+            }
+
+            FileUtils.deleteQuietly(directory);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Renders the first page of the input-file at {@link RenderResolution#DEFAULT}.
+     *
+     * @return The page or null, if it could not be rendered.
+     */
+    private BufferedImage renderFirstPage() {
+        BufferedImage page = new PDFToPPMConverter(1, inputFile.getAbsolutePath(), new CountDownLatch(1), OutputFormat.PPM,
+                RenderResolution.DEFAULT).call();
+
+        if (page == null) {
+            LOG.warning("Could not render the first page of " + inputFile.getName());
+        }
+
+        return page;
+    }
+
+    /**
+     * Encodes an image as binary PPM.
+     *
+     * @param image The image.
+     * @return The encoded image.
+     */
+    private static byte[] encodePPM(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] header = String.format("P6\n%d %d\n255\n", image.getWidth(), image.getHeight()).getBytes(StandardCharsets.US_ASCII);
+        out.write(header, 0, header.length);
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                out.write(rgb >> 16);
+                out.write(rgb >> 8);
+                out.write(rgb);
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Prints the throughput of a benchmark.
+     *
+     * @param name  The name of the benchmark.
+     * @param bytes The number of bytes processed per run.
+     * @param avgMs The average time of a run in milliseconds.
+     */
+    private static void printThroughput(String name, long bytes, double avgMs) {
+        System.out.printf("%-40s %10.2f MB/s%n", name, bytes / (1024.0 * 1024.0) / (avgMs / 1_000.0));
+    }
+
+    /**
+     * Runs a task {@link #WARMUP_RUNS} + {@link #MEASURED_RUNS} times and prints the timings of the measured runs.
+     *
+     * @param name The name of the benchmark.
+     * @param task The task to be measured.
+     * @return The average time of a measured run in milliseconds.
+     */
+    private static double measure(String name, Callable<?> task) {
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        Object result = null;
+
+        try {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                task.call();
+            }
+
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                long start = System.nanoTime();
+                result = task.call();
+                long duration = System.nanoTime() - start;
+
+                total += duration;
+                min = Math.min(min, duration);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Double.NaN;
+        }
+
+        double avg = total / (double) MEASURED_RUNS / 1_000_000.0;
+        System.out.printf("%-40s avg %10.2f ms   min %10.2f ms   (%s)%n", name, avg, min / 1_000_000.0, result);
+
+        return avg;
+    }
+}
@@ -1,15 +1,26 @@
 package main;
 
 import dto.SetupDTO;
+import logic.PageCache;
+import logic.pktool.PageCodec;
 import org.apache.commons.cli.*;
 import viewComponents.ScreenSetupFrame;
 
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Logger;
 
 public class Main {
 
     public static final Logger LOG = Logger.getLogger(Main.class.getName());
 
+    /**
+     * The default number of megabytes pages outside of the window of the page-cache may take.
+     */
+    private static final long DEFAULT_PAGE_CACHE_MEMORY = 256;
+
     /**
      * The main-method
      *
@@ -27,6 +38,28 @@ public class Main {
         Option prerenderPresentations = new Option("prerender", true, "Prerender all PDF-Files of a given folder into pktool-Files.");
         cliOptions.addOption(prerenderPresentations);
 
+        Option codec = new Option("codec", true, "The codec prerendered pages are compressed with: "
+                + Arrays.toString(PageCodec.values()) + ", default " + PageCodec.DEFLATE + ".");
+        cliOptions.addOption(codec);
+
+        Option level = new Option("level", true, "The compression-level of the codec, default " + PageCodec.DEFAULT_LEVEL + ".");
+        cliOptions.addOption(level);
+
+        Option profiles = new Option("profiles", true, "Comma-separated display-profiles, e.g. 1920x1080,1280x800, "
+                + "prerendered pages are additionally stored for, so panels of these sizes skip scaling.");
+        cliOptions.addOption(profiles);
+
+        Option window = new Option("window", true, "The number of pages kept before and after the current page by the "
+                + "pre-rendering viewers, all other pages are rendered again on demand, default all pages.");
+        cliOptions.addOption(window);
+
+        Option memory = new Option("memory", true, "The megabytes pages outside of the -window may take before they are "
+                + "evicted, default " + DEFAULT_PAGE_CACHE_MEMORY + ".");
+        cliOptions.addOption(memory);
+
+        Option benchmark = new Option("benchmark", true, "Benchmark the rendering-pipeline using a given PDF-File.");
+        cliOptions.addOption(benchmark);
+
         Option showHelp = new Option("h", "help", false, "Display this help.");
         cliOptions.addOption(showHelp);
 
@@ -46,12 +79,43 @@ public class Main {
 
 
         if (cmd.hasOption("prerender")) {
-            new PrerenderMain(cmd.getOptionValue("prerender"));
+            try {
+                new PrerenderMain(cmd.getOptionValue("prerender"),
+                        PageCodec.valueOf(cmd.getOptionValue("codec", PageCodec.DEFLATE.name()).toUpperCase()),
+                        Integer.parseInt(cmd.getOptionValue("level", Integer.toString(PageCodec.DEFAULT_LEVEL))),
+                        parseProfiles(cmd.getOptionValue("profiles", "")));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid codec, level or profiles: " + e.getMessage());
+                formatter.printHelp("pechaKuchaTool.jar", cliOptions);
+
+                System.exit(1);
+            }
+        } else if (cmd.hasOption("benchmark")) {
+            new BenchmarkMain(cmd.getOptionValue("benchmark"));
         } else if (cmd.hasOption("h")) {
             formatter.printHelp("pechaKuchaTool.jar", cliOptions);
         } else {
 
+            int pageCacheWindow;
+            long pageCacheMemory;
+
+            try {
+                pageCacheWindow = Integer.parseInt(cmd.getOptionValue("window", Integer.toString(PageCache.UNBOUNDED)));
+                pageCacheMemory = Long.parseLong(cmd.getOptionValue("memory", Long.toString(DEFAULT_PAGE_CACHE_MEMORY)));
+
+                if (pageCacheWindow < PageCache.UNBOUNDED || pageCacheMemory < 0) {
+                    throw new IllegalArgumentException("negative window or memory");
+                }
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid window or memory: " + e.getMessage());
+                formatter.printHelp("pechaKuchaTool.jar", cliOptions);
+
+                System.exit(1);
+                return;
+            }
+
             SetupDTO settings = ScreenSetupFrame.getSettings();
+            settings.setPageCacheWindow(pageCacheWindow, pageCacheMemory << 20);
 
             if (cmd.hasOption("pdf")) {
                 new PechaKuchaMain(settings, cmd.getOptionValue("pdf"));
@@ -60,4 +124,30 @@ public class Main {
             }
         }
     }
+
+    /**
+     * Parses a comma-separated list of display-profiles of the form WIDTHxHEIGHT.
+     *
+     * @param profiles The list, possibly empty.
+     * @return The boxes of the profiles.
+     * @throws IllegalArgumentException If a profile is malformed.
+     */
+    private static List<Dimension> parseProfiles(String profiles) {
+        List<Dimension> boxes = new ArrayList<>();
+
+        for (String profile : profiles.split(",")) {
+            if (profile.trim().isEmpty()) {
+                continue;
+            }
+
+            String[] size = profile.trim().toLowerCase().split("x");
+            if (size.length != 2 || Integer.parseInt(size[0]) <= 0 || Integer.parseInt(size[1]) <= 0) {
+                throw new IllegalArgumentException("Malformed display-profile " + profile);
+            }
+
+            boxes.add(new Dimension(Integer.parseInt(size[0]), Integer.parseInt(size[1])));
+        }
+
+        return boxes;
+    }
 }
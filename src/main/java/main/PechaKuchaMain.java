@@ -12,6 +12,7 @@ import org.jnativehook.GlobalScreen;
 import org.jnativehook.NativeHookException;
 import org.jnativehook.keyboard.NativeKeyEvent;
 import org.jnativehook.keyboard.NativeKeyListener;
+import viewComponents.ProgressWindow;
 import viewComponents.ScreenSetupFrame;
 
 import javax.swing.*;
@@ -24,6 +25,7 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -119,6 +121,11 @@ public class PechaKuchaMain {
      */
     private PDFViewerController pdfViewerController;
 
+    /**
+     * The loading of a new file running in the background or null.
+     */
+    private CompletableFuture<Void> pendingLoad;
+
     /**
      * The timer for managing the slide change and remaining seconds-times.
      */
@@ -180,7 +187,9 @@ public class PechaKuchaMain {
         renderedPresChooser.setFileFilter(new FileNameExtensionFilter("PechaKuchaTool-Files", "pktool"));
 
 
-        pdfViewerController = PDFViewerController.createNewControllersByName(settings.getPdfViewer(), 2);
+        pdfViewerController = PDFViewerController.createNewControllersByName(settings.getPdfViewer(), 2,
+                settings.getPageCacheWindow(), settings.getPageCacheMemoryBudget(),
+                settings.getPresentationScreen(), settings.getLookupScreen());
 
 
         // arduino
@@ -331,6 +340,10 @@ public class PechaKuchaMain {
         openFile.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_MASK));
         fileMenu.add(openFile);
 
+        JMenuItem cancelLoading = new JMenuItem("Cancel Loading");
+        cancelLoading.addActionListener(e -> cancelLoading());
+        fileMenu.add(cancelLoading);
+
         fileMenu.addSeparator();
 
         if (pdfViewerController instanceof Saveable)
@@ -534,20 +547,42 @@ public class PechaKuchaMain {
     private void openDocument(JFrame parent) {
         int returnVal = newPresChooser.showOpenDialog(parent);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
+            File file = newPresChooser.getSelectedFile();
 
-            try {
-                pdfViewerController.loadNewFile(newPresChooser.getSelectedFile().getAbsolutePath());
+            // the presentation loaded before stays usable until the new one is ready
+            cancelLoading();
 
-                parent.setTitle("PechaKucha Presentation-Tool - " + newPresChooser.getSelectedFile().getName());
-                initSeconds();
-            } catch (IOException | PDFException | PDFSecurityException | InterruptedException | ExecutionException e) {
-                e.printStackTrace();
-            }
+            ProgressWindow progress = new ProgressWindow(1, this::cancelLoading);
+            CompletableFuture<Void> load = pdfViewerController.loadNewFileAsync(file.getAbsolutePath(),
+                    p -> SwingUtilities.invokeLater(() -> progress.update(p)));
+            pendingLoad = load;
+
+            load.whenComplete((v, err) -> SwingUtilities.invokeLater(() -> {
+                progress.close();
+
+                if (err == null) {
+                    parent.setTitle("PechaKucha Presentation-Tool - " + file.getName());
+                    initSeconds();
+                } else if (!load.isCancelled()) {
+                    err.printStackTrace();
+                    JOptionPane.showMessageDialog(parent, "An error occured while loading " + file.getName() + ".",
+                            "Error while loading", JOptionPane.ERROR_MESSAGE);
+                }
+            }));
         } else {
 
         }
     }
 
+    /**
+     * Cancels the loading of a new file running in the background, keeping the current presentation.
+     */
+    private void cancelLoading() {
+        if (pendingLoad != null && !pendingLoad.isDone()) {
+            pendingLoad.cancel(true);
+        }
+    }
+
     /**
      * Close this program
      */
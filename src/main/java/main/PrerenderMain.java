@@ -2,15 +2,19 @@ package main;
 
 import logic.PDFToPPMLocalController;
 import logic.Saveable;
+import logic.pdftoppm.RenderScheduler;
+import logic.pktool.PageCodec;
 import org.icepdf.core.exceptions.PDFException;
 import org.icepdf.core.exceptions.PDFSecurityException;
 
+import java.awt.Dimension;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -47,24 +51,66 @@ public class PrerenderMain {
      */
     private File inputPath;
 
+    /**
+     * The codec the pages are compressed with.
+     */
+    private final PageCodec codec;
+
+    /**
+     * The compression-level passed to the codec.
+     */
+    private final int level;
+
+    /**
+     * The boxes of the display-profiles the pages are additionally stored for.
+     */
+    private final List<Dimension> profiles;
+
     /**
      * The constructor.
      * @param path The inputPath
      */
     public PrerenderMain(String path) {
+        this(path, PageCodec.DEFLATE, PageCodec.DEFAULT_LEVEL, Collections.emptyList());
+    }
+
+    /**
+     * The constructor.
+     * @param path  The inputPath
+     * @param codec The codec the pages are compressed with.
+     * @param level The compression-level passed to the codec.
+     */
+    public PrerenderMain(String path, PageCodec codec, int level) {
+        this(path, codec, level, Collections.emptyList());
+    }
+
+    /**
+     * The constructor.
+     * @param path     The inputPath
+     * @param codec    The codec the pages are compressed with.
+     * @param level    The compression-level passed to the codec.
+     * @param profiles The boxes of the display-profiles the pages are additionally stored for, e.g. 1920x1080.
+     */
+    public PrerenderMain(String path, PageCodec codec, int level, List<Dimension> profiles) {
         this.inputPath = new File(path);
+        this.codec = codec;
+        this.level = level;
+        this.profiles = profiles;
 
         setup();
     }
 
     /**
-     * The setup-method.
+     * The setup-method. The presentations are converted one after another, as the pages of each presentation are
+     * already rendered in parallel by the {@link RenderScheduler}.
      */
     private void setup() {
         ArrayList<File> files = new ArrayList<>(Arrays.asList((inputPath.listFiles())));
 
         files.stream().filter(f -> f.getName().endsWith(".pdf")).collect(Collectors.toList())
-                .parallelStream().forEach(this::convertPresentation);
+                .forEach(this::convertPresentation);
+
+        LOG.info("Finished prerendering, " + RenderScheduler.getInstance());
     }
 
     /**
@@ -75,13 +121,17 @@ public class PrerenderMain {
         LOG.info("Starting rendering " + file.getName());
 
         PDFToPPMLocalController controller = new PDFToPPMLocalController();
+        controller.setProgressListener(p -> System.out.println(file.getName() + ": " + p));
+        controller.setDeckCodec(codec, level);
+        controller.setDeckProfiles(profiles);
+
         try {
-            controller.loadNewFile(file.getAbsolutePath(), false);
-            controller.savePresentationToFile(new File(file.getAbsolutePath().concat(".pktool")));
+            // each page is written as soon as it is rendered, so the whole presentation is never held in memory
+            controller.prerenderToFile(file.getAbsolutePath(), new File(file.getAbsolutePath().concat(".pktool")));
 
             LOG.info("Finished rendering " + file.getName());
 
-        } catch (IOException | PDFException | PDFSecurityException | InterruptedException | ExecutionException e) {
+        } catch (IOException | PDFException | PDFSecurityException e) {
             e.printStackTrace();
         }
     }
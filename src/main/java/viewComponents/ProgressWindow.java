@@ -1,5 +1,7 @@
 package viewComponents;
 
+import logic.LoadProgress;
+
 import javax.swing.*;
 import java.awt.*;
 
@@ -25,7 +27,22 @@ public class ProgressWindow extends JWindow {
 
     private final JProgressBar progressBar;
 
+    /**
+     * Shows the details of the progress, e.g. the estimated remaining time.
+     */
+    private final JLabel wait;
+
     public ProgressWindow(int max) {
+        this(max, null);
+    }
+
+    /**
+     * Creates a progress-window offering to cancel the loading.
+     *
+     * @param max      the number of steps
+     * @param onCancel called when the cancel-button is pressed, or null if the loading cannot be cancelled
+     */
+    public ProgressWindow(int max, Runnable onCancel) {
         super();
 
         setSize(400, 250);
@@ -39,7 +56,7 @@ public class ProgressWindow extends JWindow {
         double fontSize = font.getSize() * (380.0 / (double) info.getFontMetrics(font).stringWidth(info.getText()));
         info.setFont(info.getFont().deriveFont(Font.BOLD).deriveFont((float) fontSize));
 
-        JLabel wait = new JLabel("Please wait...");
+        wait = new JLabel("Please wait...");
 
         root.add(info);
         root.add(wait);
@@ -49,6 +66,15 @@ public class ProgressWindow extends JWindow {
 
         root.add(progressBar);
 
+        if (onCancel != null) {
+            JButton cancel = new JButton("Cancel");
+            cancel.addActionListener(e -> {
+                close();
+                onCancel.run();
+            });
+            root.add(cancel);
+        }
+
         setLocationRelativeTo(null);
         pack();
         setVisible(true);
@@ -60,6 +86,30 @@ public class ProgressWindow extends JWindow {
         progressBar.setValue(progressBar.getValue() + 1);
     }
 
+    /**
+     * Sets the progress, e.g. when the number of steps is only known while loading.
+     *
+     * @param value the number of finished steps
+     * @param max   the number of steps
+     */
+    public synchronized void setProgress(int value, int max) {
+        progressBar.setMaximum(max);
+        progressBar.setValue(value);
+    }
+
+    /**
+     * Shows the progress of loading a file, including the estimated remaining time.
+     *
+     * @param progress the {@link LoadProgress}
+     */
+    public void update(LoadProgress progress) {
+        setProgress(progress.getPagesDone(), progress.getPageCount());
+
+        long eta = progress.getEtaMillis();
+        wait.setText(String.format("Please wait... %.1f MB decoded, %s", progress.getBytesDecoded() / (1024.0 * 1024.0),
+                eta < 0 ? "estimating remaining time" : (eta + 999) / 1000 + " s remaining"));
+    }
+
     public void close() {
         dispose();
     }
@@ -37,7 +37,7 @@ public class ScreenSetupFrame extends JDialog {
     private JTextField timeToNextSlide;
     private JTextField maxSlides;
 
-    private static final String[] PDF_VIEWERS = {"icepdf", "pdftoppm-local"};
+    private static final String[] PDF_VIEWERS = {"icepdf", "pdftoppm-local", "icepdf-prerender"};
     private static final String[] NO_YES = {"No", "Yes"};
 
     public ScreenSetupFrame() {
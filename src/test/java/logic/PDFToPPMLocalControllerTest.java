@@ -0,0 +1,198 @@
+package logic;
+
+import logic.pdftoppm.RenderCancellation;
+import logic.pdftoppm.RenderResolution;
+import logic.pktool.DeckWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/*
+    PechaKuchaTool -- Supports displaying Pecha Kucha-Presentations
+    Copyright (C) 2017  Gereon Dusella
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Tests the {@link PDFToPPMLocalController} without any panels, so no screen is needed.
+ */
+public class PDFToPPMLocalControllerTest {
+
+    /**
+     * The number of pages of the test-deck.
+     */
+    private static final int PAGE_COUNT = 12;
+
+    /**
+     * The directory holding the files of a test.
+     */
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pktool-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    /**
+     * A deck loaded by a controller created with a small window only keeps the pages around the current one.
+     */
+    @Test
+    public void windowedCacheEvictsPagesWhileNavigating() throws Exception {
+        File deck = writeDeck();
+        PDFToPPMLocalController controller = (PDFToPPMLocalController)
+                PDFViewerController.createNewControllersByName("pdftoppm-local", 0, 1, 0);
+
+        controller.loadPresentationFromFile(deck);
+
+        for (int page = 1; page < PAGE_COUNT; page++) {
+            controller.nextPage();
+        }
+
+        PageCache cache = controller.getPageCache();
+        assertTrue("The cache of the loaded deck is not windowed", cache.isWindowed());
+        assertTrue("No page has been evicted: " + cache, cache.getEvictions() > 0);
+        assertEquals(PAGE_COUNT - 1, controller.getCurrentPageNumber());
+    }
+
+    /**
+     * Saving over the deck the pages are mapped from replaces it and loads it again at the current page.
+     */
+    @Test
+    public void savingOverLoadedDeckReloadsIt() throws Exception {
+        File deck = writeDeck();
+        PDFToPPMLocalController controller = (PDFToPPMLocalController)
+                PDFViewerController.createNewControllersByName("pdftoppm-local", 0, 1, 0);
+
+        controller.loadPresentationFromFile(deck);
+        controller.nextPage();
+        controller.nextPage();
+
+        assertTrue(controller.savePresentationToFile(deck));
+
+        assertEquals(2, controller.getCurrentPageNumber());
+        assertEquals(PAGE_COUNT, controller.getPageCache().getPageCount());
+        assertNotNull(controller.getPageCache().get(PAGE_COUNT - 1).get(10, TimeUnit.SECONDS));
+        assertEquals("A staging file has been left", 1, directory.listFiles().length);
+    }
+
+    /**
+     * A load failing with a {@link RuntimeException} before its first page is rendered completes the returned future
+     * exceptionally instead of leaving it pending.
+     */
+    @Test
+    public void failingLoadCompletesExceptionally() throws Exception {
+        File pdf = writePdf();
+        PDFToPPMLocalController controller = new PDFToPPMLocalController() {
+            @Override
+            protected PageSource createPageSource(String filePath, int pageCount, RenderResolution pageResolution,
+                                                  RenderCancellation cancellation) {
+                throw new IllegalArgumentException("Unsupported resolution " + pageResolution);
+            }
+        };
+        controller.setRenderCache(null);
+
+        try {
+            controller.loadNewFileAsync(pdf.getAbsolutePath(), null).get(10, TimeUnit.SECONDS);
+            fail("The load did not fail");
+        } catch (ExecutionException e) {
+            assertTrue("Unexpected failure " + e.getCause(), e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * Writes a PDF of a single blank page.
+     *
+     * @return The file of the PDF.
+     * @throws IOException If the PDF cannot be written.
+     */
+    private File writePdf() throws IOException {
+        String[] objects = {"<</Type/Catalog/Pages 2 0 R>>", "<</Type/Pages/Kids[3 0 R]/Count 1>>",
+                "<</Type/Page/Parent 2 0 R/MediaBox[0 0 200 150]>>"};
+
+        StringBuilder pdf = new StringBuilder("%PDF-1.4\n");
+        int[] offsets = new int[objects.length];
+
+        for (int i = 0; i < objects.length; i++) {
+            offsets[i] = pdf.length();
+            pdf.append(i + 1).append(" 0 obj\n").append(objects[i]).append("\nendobj\n");
+        }
+
+        int xref = pdf.length();
+        pdf.append("xref\n0 ").append(objects.length + 1).append("\n0000000000 65535 f \n");
+
+        for (int offset : offsets) {
+            pdf.append(String.format("%010d 00000 n \n", offset));
+        }
+
+        pdf.append("trailer\n<</Size ").append(objects.length + 1).append("/Root 1 0 R>>\nstartxref\n").append(xref)
+                .append("\n%%EOF\n");
+
+        File file = new File(directory, "test.pdf");
+        Files.write(file.toPath(), pdf.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+        return file;
+    }
+
+    /**
+     * Writes a deck of {@link #PAGE_COUNT} pages of distinct colors.
+     *
+     * @return The file of the deck.
+     * @throws IOException If the deck cannot be written.
+     */
+    private File writeDeck() throws IOException {
+        File file = new File(directory, "test.pktool");
+
+        try (DeckWriter writer = new DeckWriter(file, PAGE_COUNT)) {
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                BufferedImage image = new BufferedImage(160, 120, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics();
+                g.setColor(new Color(page * 20, 255 - page * 20, 128));
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+                g.dispose();
+
+                writer.writePage(page, image);
+            }
+        }
+
+        return file;
+    }
+}